@@ -0,0 +1,80 @@
+package jpabook.jpashop.admission;
+
+import jpabook.jpashop.monitor.ConnectionProfiler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static jpabook.jpashop.admission.EndpointClass.BATCH;
+import static jpabook.jpashop.admission.EndpointClass.FULL_SCAN;
+import static jpabook.jpashop.admission.EndpointClass.PAGED;
+import static org.springframework.http.HttpMethod.GET;
+import static org.springframework.http.HttpMethod.POST;
+
+/**
+ * 주문 조회 API 별 비용 (토큰 수)
+ *
+ * FULL_SCAN 은 초당 5 토큰, 최대 20 토큰이므로 cost 10 인 API 는 평균 2초에 한 번, 몰려도 연속 2번까지만 받는다.
+ * PAGED 는 limit 에 비례해서 토큰을 쓴다. (Rule 의 rowsPerCost)
+ * jpashop.admission.pool-wait-threshold-ms : 최근 커넥션 대기 시간이 이 값을 넘으면 모든 규칙의 API 를 거절한다. (기본 50ms)
+ */
+@Configuration
+public class AdmissionConfig implements WebMvcConfigurer {
+
+    private final AdmissionControl admissionControl;
+
+    public AdmissionConfig(ConnectionProfiler connectionProfiler,
+                           @Value("${jpashop.admission.pool-wait-threshold-ms:50}") double poolWaitThresholdMillis) {
+        this.admissionControl = new AdmissionControl(rules(), connectionProfiler, poolWaitThresholdMillis);
+    }
+
+    @Bean
+    public AdmissionControl admissionControl() {
+        return admissionControl;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdmissionInterceptor(admissionControl))
+                .addPathPatterns("/api/**");
+    }
+
+    private static Map<String, AdmissionControl.Rule> rules() {
+        Map<String, AdmissionControl.Rule> rules = new HashMap<>();
+        // 엔티티 조회 + 지연 로딩 N + 1
+        rules.put(key(GET, "/api/v1/orders"), new AdmissionControl.Rule(FULL_SCAN, 10));
+        rules.put(key(GET, "/api/v2/orders"), new AdmissionControl.Rule(FULL_SCAN, 10));
+        rules.put(key(GET, "/api/v2-osiv/orders"), new AdmissionControl.Rule(FULL_SCAN, 10));
+        rules.put(key(GET, "/api/v1/simple-orders"), new AdmissionControl.Rule(FULL_SCAN, 5));
+        rules.put(key(GET, "/api/v2/simple-orders"), new AdmissionControl.Rule(FULL_SCAN, 5));
+        // 컬렉션 fetch join - 중복 row 를 전부 읽고 메모리에서 distinct
+        rules.put(key(GET, "/api/v3/orders"), new AdmissionControl.Rule(FULL_SCAN, 10));
+        // DTO 조회 - 주문마다 주문상품 쿼리(N + 1)
+        rules.put(key(GET, "/api/v4/orders"), new AdmissionControl.Rule(FULL_SCAN, 6));
+        // 쿼리 1 ~ 2번이지만 주문 테이블 전체
+        rules.put(key(GET, "/api/v5/orders"), new AdmissionControl.Rule(FULL_SCAN, 3));
+        rules.put(key(GET, "/api/v6/orders"), new AdmissionControl.Rule(FULL_SCAN, 4));
+        rules.put(key(GET, "/api/v3/simple-orders"), new AdmissionControl.Rule(FULL_SCAN, 2));
+        rules.put(key(GET, "/api/v4/simple-orders"), new AdmissionControl.Rule(FULL_SCAN, 2));
+        // 페이징, 기간 검색 - limit 100 행마다 cost
+        rules.put(key(GET, "/api/v3.1/orders"), new AdmissionControl.Rule(PAGED, 2, 100));
+        rules.put(key(GET, "/api/v1/orders/window"), new AdmissionControl.Rule(PAGED, 1, 100));
+        rules.put(key(GET, "/api/v1/members/orders"), new AdmissionControl.Rule(PAGED, 2, 100));
+        // 대량 변경 - 한 번에 하나씩, 보관/배송 처리는 5초에 한 번
+        rules.put(key(POST, "/api/v1/orders/cancel"), new AdmissionControl.Rule(BATCH, 1));
+        rules.put(key(POST, "/api/v1/orders/archive"), new AdmissionControl.Rule(BATCH, 5));
+        rules.put(key(POST, "/api/v1/orders/archive/months"), new AdmissionControl.Rule(BATCH, 5));
+        rules.put(key(POST, "/api/v1/deliveries/process"), new AdmissionControl.Rule(BATCH, 5));
+        return rules;
+    }
+
+    private static String key(HttpMethod method, String pattern) {
+        return AdmissionControl.key(method.name(), pattern);
+    }
+}
@@ -0,0 +1,205 @@
+package jpabook.jpashop.admission;
+
+import jpabook.jpashop.monitor.ConnectionProfiler;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 비싼 API 의 수락/거절 판단
+ *
+ * 요청마다 아래 순서로 확인하고, 하나라도 걸리면 바로 거절한다. (기다리지 않는다.)
+ * 1. 부하 차단 - 최근 커넥션 대기 시간(ConnectionProfiler)이 poolWaitThresholdMillis 를 넘으면 풀이 부족한 것이므로 받지 않는다.
+ * 2. 동시 실행 상한 - EndpointClass 별 세마포어
+ * 3. 처리율 - EndpointClass 별 토큰 버킷에서 API 비용(cost)만큼 토큰을 꺼낸다.
+ *
+ * 규칙이 없는 API 는 확인하지 않는다.
+ */
+public class AdmissionControl {
+
+    public enum Reason {
+        POOL_WAIT, CONCURRENCY, RATE
+    }
+
+    private final Map<String, Rule> rules;
+    private final Map<EndpointClass, ClassState> states = new EnumMap<>(EndpointClass.class);
+    private final ConnectionProfiler connectionProfiler;
+    private final double poolWaitThresholdMillis;
+
+    public AdmissionControl(Map<String, Rule> rules, ConnectionProfiler connectionProfiler, double poolWaitThresholdMillis) {
+        this.rules = Collections.unmodifiableMap(new HashMap<>(rules));
+        this.connectionProfiler = connectionProfiler;
+        this.poolWaitThresholdMillis = poolWaitThresholdMillis;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            states.put(endpointClass, new ClassState(endpointClass));
+        }
+    }
+
+    /**
+     * 같은 경로라도 메서드마다 비용이 다르므로(ex. GET /api/v1/orders 는 전체 조회, POST 는 주문 1건) 메서드와 함께 찾는다.
+     *
+     * @param pattern 핸들러 매핑 패턴 (ex. /api/v1/orders/{orderId})
+     */
+    public Rule ruleFor(String method, String pattern) {
+        return pattern == null ? null : rules.get(key(method, pattern));
+    }
+
+    /**
+     * 규칙 Map 의 키. ex) "GET /api/v3.1/orders"
+     */
+    public static String key(String method, String pattern) {
+        return method + " " + pattern;
+    }
+
+    /**
+     * @param cost 이번 요청의 비용 (Rule.costFor)
+     * @return 수락하면 null. 수락한 요청은 끝난 뒤 반드시 release 해야 한다.
+     */
+    public Rejection admit(Rule rule, int cost) {
+        ClassState state = states.get(rule.getEndpointClass());
+        if (connectionProfiler.getRecentWaitMillis() > poolWaitThresholdMillis) {
+            state.shed.increment();
+            return new Rejection(Reason.POOL_WAIT, 1);
+        }
+        if (!state.permits.tryAcquire()) {
+            state.rejectedConcurrency.increment();
+            return new Rejection(Reason.CONCURRENCY, 1);
+        }
+        if (!state.bucket.tryAcquire(cost)) {
+            state.permits.release();
+            state.rejectedRate.increment();
+            long waitSeconds = TimeUnit.NANOSECONDS.toSeconds(state.bucket.nanosUntil(cost)) + 1;
+            return new Rejection(Reason.RATE, waitSeconds);
+        }
+        state.admitted.increment();
+        return null;
+    }
+
+    public void release(Rule rule) {
+        states.get(rule.getEndpointClass()).permits.release();
+    }
+
+    public Snapshot snapshot() {
+        List<ClassSnapshot> classes = new ArrayList<>();
+        for (ClassState state : states.values()) {
+            classes.add(new ClassSnapshot(state));
+        }
+        return new Snapshot(connectionProfiler.getRecentWaitMillis(), poolWaitThresholdMillis, classes);
+    }
+
+    /**
+     * API 하나의 규칙 - 어느 묶음에 속하고, 한 번 호출에 토큰을 몇 개 쓰는지
+     *
+     * rowsPerCost 가 있으면 limit 파라미터 rowsPerCost 행마다 cost 개를 쓴다. (limit 이 없으면 cost 개)
+     * 비용은 burst 를 넘지 않게 자른다. 넘으면 영원히 수락되지 않기 때문이다. 최대 limit 은 각 컨트롤러가 제한한다.
+     */
+    @Getter
+    public static class Rule {
+
+        private final EndpointClass endpointClass;
+        private final int cost;
+        private final int rowsPerCost;
+
+        public Rule(EndpointClass endpointClass, int cost) {
+            this(endpointClass, cost, 0);
+        }
+
+        public Rule(EndpointClass endpointClass, int cost, int rowsPerCost) {
+            if (cost > endpointClass.getBurst()) {
+                throw new IllegalArgumentException("cost " + cost + " exceeds burst of " + endpointClass);
+            }
+            this.endpointClass = endpointClass;
+            this.cost = cost;
+            this.rowsPerCost = rowsPerCost;
+        }
+
+        public int costFor(String limit) {
+            if (rowsPerCost <= 0 || limit == null) {
+                return cost;
+            }
+            long rows;
+            try {
+                rows = Long.parseLong(limit.trim());
+            } catch (NumberFormatException e) {
+                return cost;    // 컨트롤러에서 400
+            }
+            long units = Math.max(1, (rows + rowsPerCost - 1) / rowsPerCost);
+            return (int) Math.min((long) cost * units, endpointClass.getBurst());
+        }
+    }
+
+    @Getter
+    public static class Rejection {
+
+        private final Reason reason;
+        private final long retryAfterSeconds;
+
+        Rejection(Reason reason, long retryAfterSeconds) {
+            this.reason = reason;
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    private static class ClassState {
+
+        private final EndpointClass endpointClass;
+        private final TokenBucket bucket;
+        private final Semaphore permits;
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder rejectedRate = new LongAdder();
+        private final LongAdder rejectedConcurrency = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+
+        private ClassState(EndpointClass endpointClass) {
+            this.endpointClass = endpointClass;
+            this.bucket = new TokenBucket(endpointClass.getRatePerSecond(), endpointClass.getBurst());
+            this.permits = new Semaphore(endpointClass.getMaxConcurrent());
+        }
+    }
+
+    @Getter
+    public static class ClassSnapshot {
+
+        private final EndpointClass endpointClass;
+        private final int inFlight;
+        private final int maxConcurrent;
+        private final double availableTokens;
+        private final long admitted;
+        private final long rejectedRate;
+        private final long rejectedConcurrency;
+        private final long shed;            // 커넥션 대기로 거절
+
+        private ClassSnapshot(ClassState state) {
+            this.endpointClass = state.endpointClass;
+            this.maxConcurrent = state.endpointClass.getMaxConcurrent();
+            this.inFlight = maxConcurrent - state.permits.availablePermits();
+            this.availableTokens = state.bucket.available();
+            this.admitted = state.admitted.sum();
+            this.rejectedRate = state.rejectedRate.sum();
+            this.rejectedConcurrency = state.rejectedConcurrency.sum();
+            this.shed = state.shed.sum();
+        }
+    }
+
+    @Getter
+    public static class Snapshot {
+
+        private final double recentPoolWaitMillis;
+        private final double poolWaitThresholdMillis;
+        private final List<ClassSnapshot> classes;
+
+        private Snapshot(double recentPoolWaitMillis, double poolWaitThresholdMillis, List<ClassSnapshot> classes) {
+            this.recentPoolWaitMillis = recentPoolWaitMillis;
+            this.poolWaitThresholdMillis = poolWaitThresholdMillis;
+            this.classes = classes;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package jpabook.jpashop.admission;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 규칙이 있는 API 를 AdmissionControl 로 확인하고, 거절하면 컨트롤러를 호출하지 않고 429 를 응답한다.
+ * 조회뿐 아니라 대량 취소, 보관, 배송 처리 같은 POST 작업도 규칙이 있으면 확인한다.
+ */
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    private static final String ADMITTED_RULE = AdmissionInterceptor.class.getName() + ".rule";
+
+    private final AdmissionControl admissionControl;
+
+    public AdmissionInterceptor(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        AdmissionControl.Rule rule = admissionControl.ruleFor(request.getMethod(),
+                (String) request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE));
+        if (rule == null) {
+            return true;
+        }
+        AdmissionControl.Rejection rejection = admissionControl.admit(rule, rule.costFor(request.getParameter("limit")));
+        if (rejection == null) {
+            request.setAttribute(ADMITTED_RULE, rule);
+            return true;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(rejection.getRetryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"status\":429,\"reason\":\"" + rejection.getReason() + "\"}");
+        return false;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        AdmissionControl.Rule rule = (AdmissionControl.Rule) request.getAttribute(ADMITTED_RULE);
+        if (rule != null) {
+            request.removeAttribute(ADMITTED_RULE);
+            admissionControl.release(rule);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package jpabook.jpashop.admission;
+
+/**
+ * 비용이 비슷한 API 묶음 - 묶음마다 토큰 버킷 하나, 동시 실행 상한 하나를 둔다.
+ */
+public enum EndpointClass {
+
+    /** 주문 테이블 전체를 읽는 API (페이징 없음, 컬렉션 fetch join + 메모리 distinct 등) */
+    FULL_SCAN(2, 5, 20),
+
+    /** 페이징/기간으로 읽는 양이 제한된 주문 API */
+    PAGED(8, 100, 200),
+
+    /** 여러 주문/배송을 한 번에 바꾸는 관리 작업 (대량 취소, 보관, 배송 처리) */
+    BATCH(1, 1, 10);
+
+    private final int maxConcurrent;
+    private final double ratePerSecond;    // 초당 토큰
+    private final int burst;
+
+    EndpointClass(int maxConcurrent, double ratePerSecond, int burst) {
+        this.maxConcurrent = maxConcurrent;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+}
@@ -0,0 +1,64 @@
+package jpabook.jpashop.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 토큰 버킷 - 초당 ratePerSecond 개씩 채워지고 최대 burst 개까지 쌓인다.
+ *
+ * 토큰 수와 마지막 충전 시각을 따로 두지 않고, "버킷이 다시 가득 차는 시각"(full) 하나를 AtomicLong 으로 CAS 한다.
+ * (GCRA 방식) cost 개를 꺼내면 full 이 cost * 토큰 간격만큼 뒤로 밀리고, 시간이 지나면 저절로 충전된 것이 된다.
+ * 락도, 충전용 스레드도 없다.
+ */
+public class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final LongSupplier clock;
+    private final AtomicLong full;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        this(ratePerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double ratePerSecond, int burst, LongSupplier clock) {
+        this.nanosPerToken = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        this.burstNanos = nanosPerToken * burst;
+        this.clock = clock;
+        this.full = new AtomicLong(clock.getAsLong());
+    }
+
+    public boolean tryAcquire(int cost) {
+        long costNanos = nanosPerToken * cost;
+        while (true) {
+            long now = clock.getAsLong();
+            long current = full.get();
+            long next = Math.max(current, now) + costNanos;
+            if (next - now > burstNanos) {
+                return false;
+            }
+            if (full.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 남은 토큰 수 (지금 시각 기준)
+     */
+    public double available() {
+        long now = clock.getAsLong();
+        long used = Math.max(full.get(), now) - now;
+        return (burstNanos - used) / (double) nanosPerToken;
+    }
+
+    /**
+     * cost 개가 모일 때까지 기다려야 하는 시간 (Retry-After 용)
+     */
+    public long nanosUntil(int cost) {
+        long now = clock.getAsLong();
+        long next = Math.max(full.get(), now) + nanosPerToken * cost;
+        return Math.max(0, next - now - burstNanos);
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.aop;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 낙관적 락 충돌(@Version)이 나면 트랜잭션을 처음부터 다시 실행한다.
+ * 트랜잭션 바깥에서 감싸야 하므로 @Transactional 이 붙은 서비스 메서드에 사용한다. (RetryInterceptor 참고)
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Retry {
+
+    /** 최초 실행을 포함한 최대 실행 횟수 */
+    int maxAttempts() default 5;
+
+    /** 첫 재시도 대기 시간의 상한(ms). 재시도 할 때마다 2배씩 늘어나고, 실제 대기 시간은 0 ~ 상한 사이에서 무작위로 고른다. */
+    long backoffMillis() default 10;
+}
@@ -0,0 +1,27 @@
+package jpabook.jpashop.aop;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class RetryConfig {
+
+    /**
+     * @Transactional 과 같은 방식(인프라 Advisor)으로 등록한다. 별도의 AspectJ 의존성 없이 프록시에 적용된다.
+     * 트랜잭션 Advisor(기본 LOWEST_PRECEDENCE)보다 우선순위를 높게 주어 트랜잭션 바깥에서 재시도한다.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor retryAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(Retry.class), new RetryInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,55 @@
+package jpabook.jpashop.aop;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @Retry 가 붙은 메서드를 낙관적 락 충돌 시 다시 실행한다.
+ *
+ * - 트랜잭션 인터셉터보다 먼저(바깥에서) 실행되어야 재시도할 때마다 새 트랜잭션, 새 영속성 컨텍스트로 시작한다. (RetryConfig 의 order)
+ * - 이미 바깥 트랜잭션이 있으면 재시도하지 않는다. 같은 트랜잭션 안에서 다시 실행해도 이미 롤백 대상이기 때문이다.
+ * - MethodInvocation 은 proceed() 할 때마다 다음 인터셉터로 넘어가므로, 같은 객체로 다시 proceed() 하면 안쪽의 트랜잭션 인터셉터를 건너뛰고
+ *   대상 메서드만 실행된다. 매번 invocableClone() 으로 복제해서 체인 전체(트랜잭션 포함)를 처음부터 다시 탄다.
+ * - 동시에 충돌한 요청들이 같은 시점에 다시 부딪히지 않도록 대기 시간에 무작위 값(jitter)을 준다.
+ */
+@Slf4j
+public class RetryInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Retry retry = AnnotatedElementUtils.findMergedAnnotation(invocation.getMethod(), Retry.class);
+        if (retry == null || TransactionSynchronizationManager.isActualTransactionActive()
+                || !(invocation instanceof ProxyMethodInvocation)) {
+            return invocation.proceed();
+        }
+        ProxyMethodInvocation proxyInvocation = (ProxyMethodInvocation) invocation;
+
+        int attempt = 1;
+        while (true) {
+            try {
+                return proxyInvocation.invocableClone().proceed();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= retry.maxAttempts()) {
+                    throw e;
+                }
+                log.debug("optimistic lock conflict. method={}, attempt={}", invocation.getMethod().getName(), attempt);
+                sleep(retry.backoffMillis() << (attempt - 1));
+                attempt++;
+            }
+        }
+    }
+
+    private void sleep(long maxBackoffMillis) throws InterruptedException {
+        if (maxBackoffMillis > 0) {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxBackoffMillis + 1));
+        }
+    }
+}
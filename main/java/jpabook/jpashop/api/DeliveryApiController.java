@@ -0,0 +1,29 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.service.delivery.DeliveryProcessor;
+import jpabook.jpashop.service.delivery.DeliveryRunResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class DeliveryApiController {
+
+    private static final int MAX_WORKERS = 8;         // 작업자마다 커넥션을 하나씩 쓰므로 풀(기본 10개)보다 작게
+    private static final int MAX_BATCH_SIZE = 1000;   // 한 번에 가져가는 배송 수 (in 쿼리 파라미터 수)
+
+    private final DeliveryProcessor deliveryProcessor;
+
+    /**
+     * READY 배송을 모두 COMP 로 처리하고 처리량을 돌려준다.
+     * workers 는 1 ~ MAX_WORKERS, batchSize 는 1 ~ MAX_BATCH_SIZE 로 맞춘다.
+     */
+    @PostMapping("/api/v1/deliveries/process")
+    public DeliveryRunResult process(@RequestParam(value = "workers", defaultValue = "4") int workers,
+                                     @RequestParam(value = "batchSize", defaultValue = "100") int batchSize) throws InterruptedException {
+        return deliveryProcessor.run(Math.max(1, Math.min(workers, MAX_WORKERS)),
+                Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE)));
+    }
+}
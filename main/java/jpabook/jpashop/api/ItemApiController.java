@@ -0,0 +1,117 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.item.query.*;
+import jpabook.jpashop.service.ItemImportResult;
+import jpabook.jpashop.service.ItemImportService;
+import jpabook.jpashop.service.ItemService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private static final int MAX_SEARCH_LIMIT = 100;    // 검색 결과 최대 건수 (limit 은 1 ~ MAX_SEARCH_LIMIT 로 맞춘다.)
+
+    private final ItemQueryRepository itemQueryRepository;
+    private final ItemService itemService;
+    private final ItemImportService itemImportService;
+
+    /**
+     * 상품 목록 - 공통 컬럼(id, name, price, stockQuantity)만 페이징 조회
+     * type 파라미터(B, A, M 또는 BOOK, ALBUM, MOVIE)를 주면 해당 타입만 dtype 조건으로 조회한다.
+     */
+    @GetMapping("/api/v1/items")
+    public Result<List<ItemQueryDto>> items(
+            @RequestParam(value = "type", required = false) String type,
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        List<ItemQueryDto> items = (type == null)
+                ? itemQueryRepository.findItemDtos(offset, limit)
+                : itemQueryRepository.findItemDtos(ItemType.from(type), offset, limit);
+        return new Result<>(items.size(), items);
+    }
+
+    @GetMapping("/api/v1/items/books")
+    public Result<List<BookQueryDto>> books(
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        List<BookQueryDto> books = itemQueryRepository.findBookDtos(offset, limit);
+        return new Result<>(books.size(), books);
+    }
+
+    @GetMapping("/api/v1/items/albums")
+    public Result<List<AlbumQueryDto>> albums(
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        List<AlbumQueryDto> albums = itemQueryRepository.findAlbumDtos(offset, limit);
+        return new Result<>(albums.size(), albums);
+    }
+
+    @GetMapping("/api/v1/items/movies")
+    public Result<List<MovieQueryDto>> movies(
+            @RequestParam(value = "offset", defaultValue = "0") int offset,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        List<MovieQueryDto> movies = itemQueryRepository.findMovieDtos(offset, limit);
+        return new Result<>(movies.size(), movies);
+    }
+
+    /**
+     * 상품 검색 - 상품명, 저자, isbn, 아티스트, 감독에 대해 접두어 검색 (ex. q=jpa, q=kim, q=97889)
+     */
+    @GetMapping("/api/v1/items/search")
+    public Result<List<ItemQueryDto>> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        List<ItemQueryDto> items = itemService.searchItems(query, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT)));
+        return new Result<>(items.size(), items);
+    }
+
+    @GetMapping("/api/v1/items/isbn/{isbn}")
+    public ResponseEntity<ItemQueryDto> findByIsbn(@PathVariable("isbn") String isbn) {
+        return ResponseEntity.of(itemService.findByIsbn(isbn));
+    }
+
+    /**
+     * 검색 색인을 DB 기준으로 다시 만든다.
+     */
+    @PostMapping("/api/v1/items/search/rebuild")
+    public RebuildIndexResponse rebuildSearchIndex() {
+        return new RebuildIndexResponse(itemService.rebuildSearchIndex());
+    }
+
+    /**
+     * 도서 대량 등록 (isbn 기준으로 있으면 수정, 없으면 등록)
+     * 요청 body 를 스트림으로 그대로 읽으므로 파일 크기와 상관없이 메모리 사용량이 일정하다.
+     * ex. curl -X POST -H "Content-Type: text/csv" --data-binary @books.csv localhost:8080/api/v1/items/import
+     */
+    @PostMapping(value = "/api/v1/items/import", consumes = "text/csv")
+    public ItemImportResult importCsv(InputStream body) throws IOException {
+        return itemImportService.importCsv(body);
+    }
+
+    @PostMapping(value = "/api/v1/items/import", consumes = "application/x-ndjson")
+    public ItemImportResult importNdjson(InputStream body) throws IOException {
+        return itemImportService.importNdjson(body);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class RebuildIndexResponse {
+        private int indexedCount;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T> {
+        private int count;
+        private T data;
+    }
+}
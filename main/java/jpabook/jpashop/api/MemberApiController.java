@@ -1,15 +1,27 @@
 package jpabook.jpashop.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.member.query.MemberOrderQueryRepository;
+import jpabook.jpashop.repository.member.query.MemberOrdersQueryDto;
+import jpabook.jpashop.repository.member.query.MemberQueryDto;
+import jpabook.jpashop.repository.member.query.MemberQueryRepository;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -17,7 +29,15 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MemberApiController {
 
+    private static final int BULK_CHUNK_SIZE = 500;  // 한 트랜잭션, 한 번의 in 쿼리로 처리할 요청 수
+    private static final int MAX_PAGE_SIZE = 1000;   // 한 페이지 최대 건수 (limit 은 1 ~ MAX_PAGE_SIZE 로 맞춘다.)
+    private static final int MAX_MEMBER_ORDERS_PAGE_SIZE = 200;  // 회원별 주문 내역은 회원 수 x 주문 수 만큼 읽으므로 따로 제한한다.
+    private static final int MAX_ORDERS_PER_MEMBER = 50;
+
     private final MemberService memberService;
+    private final MemberQueryRepository memberQueryRepository;
+    private final MemberOrderQueryRepository memberOrderQueryRepository;
+    private final ObjectMapper objectMapper;
 
     /**
      * 현재 문제 - Entity를 손대면 API 스펙 자체가 변경된다. Entity는 굉장히 여러 군데서 사용되기 때문에 바뀔 확률이 높다.
@@ -48,6 +68,68 @@ public class MemberApiController {
         return new CreateMemberResponse(id);
     }
 
+    /**
+     * 회원 대량 가입 (파트너사 이관용)
+     * 요청을 BULK_CHUNK_SIZE 단위로 나누어 가입시키고, 처리가 끝난 행부터 한 줄에 하나씩(NDJSON) 바로 응답으로 내려준다.
+     * chunk 마다 트랜잭션이 나뉘므로 중간 chunk 가 실패해도 앞서 응답한 행은 가입된 상태다.
+     */
+    @PostMapping("/api/v2/members/bulk")
+    public ResponseEntity<StreamingResponseBody> saveMembersV2(@RequestBody List<CreateMemberRequest> requests) {
+        StreamingResponseBody body = out -> {
+            for (int from = 0; from < requests.size(); from += BULK_CHUNK_SIZE) {
+                List<CreateMemberRequest> chunk = requests.subList(from, Math.min(from + BULK_CHUNK_SIZE, requests.size()));
+                writeResults(out, from, chunk, joinChunk(chunk));
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    private List<BulkMemberResponse> joinChunk(List<CreateMemberRequest> chunk) {
+        List<Member> members = new ArrayList<>();
+        for (CreateMemberRequest request : chunk) {
+            if (StringUtils.hasText(request.getName())) {
+                Member member = new Member();
+                member.setName(request.getName());
+                members.add(member);
+            }
+        }
+
+        List<Long> ids;
+        try {
+            ids = memberService.joinAll(members);
+        } catch (DataAccessException e) {
+            // 동시에 다른 요청이 같은 이름을 먼저 가입시킨 경우 (unique 제약조건) chunk 전체가 롤백된다.
+            ids = null;
+        }
+
+        List<BulkMemberResponse> results = new ArrayList<>(chunk.size());
+        int joined = 0;
+        for (CreateMemberRequest request : chunk) {
+            if (!StringUtils.hasText(request.getName())) {
+                results.add(new BulkMemberResponse(request.getName(), null, BulkStatus.INVALID));
+            } else if (ids == null) {
+                results.add(new BulkMemberResponse(request.getName(), null, BulkStatus.FAILED));
+            } else {
+                Long id = ids.get(joined++);
+                results.add(new BulkMemberResponse(request.getName(), id, id == null ? BulkStatus.DUPLICATE : BulkStatus.CREATED));
+            }
+        }
+        return results;
+    }
+
+    private void writeResults(OutputStream out, int offset, List<CreateMemberRequest> chunk,
+                              List<BulkMemberResponse> results) throws IOException {
+        for (int i = 0; i < chunk.size(); i++) {
+            BulkMemberResponse result = results.get(i);
+            result.setIndex(offset + i);
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+    }
+
     /**
      * 조회도 마찬가지로 이와 같은 방식이 아니라 DTO를 따로 만들어 반환해야 한다.
      */
@@ -67,6 +149,42 @@ public class MemberApiController {
         return new Result(collect.size(), collect);
     }
 
+    /**
+     * V3 : id, name 만 DTO로 조회하고 id 기준 keyset 페이징
+     * 응답의 lastId 를 다음 요청의 lastId 로 넘기면 다음 페이지를 조회한다. (lastId 가 null 이면 마지막 페이지)
+     * 회원 수가 늘어나도 한 번에 limit 만큼만 읽으므로 메모리, 응답 시간이 일정하다.
+     */
+    @GetMapping("/api/v3/members")
+    public PageResult<List<MemberQueryDto>> membersV3(
+            @RequestParam(value = "lastId", required = false) Long lastId,
+            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        int pageSize = pageSize(limit);
+        List<MemberQueryDto> members = memberQueryRepository.findMembers(lastId, pageSize);
+        Long nextLastId = members.size() < pageSize ? null : members.get(members.size() - 1).getId();
+        return new PageResult<>(members.size(), nextLastId, members);
+    }
+
+    /**
+     * 회원별 주문 내역 - 회원 limit 명과 회원마다 최근 주문 ordersPerMember 건, 주문상품을 함께 조회
+     * limit 은 1 ~ 200, ordersPerMember 는 1 ~ 50 으로 맞춘다. (한 번에 최대 주문 1만 건)
+     * Query: 회원 1번, 주문 1번, 주문상품 1번 (회원, 주문 수와 상관 없이 3번)
+     */
+    @GetMapping("/api/v1/members/orders")
+    public PageResult<List<MemberOrdersQueryDto>> memberOrders(
+            @RequestParam(value = "lastId", required = false) Long lastId,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "ordersPerMember", defaultValue = "10") int ordersPerMember) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_MEMBER_ORDERS_PAGE_SIZE));
+        int orderCount = Math.max(1, Math.min(ordersPerMember, MAX_ORDERS_PER_MEMBER));
+        List<MemberOrdersQueryDto> members = memberOrderQueryRepository.findMemberOrders(lastId, pageSize, orderCount);
+        Long nextLastId = members.size() < pageSize ? null : members.get(members.size() - 1).getMemberId();
+        return new PageResult<>(members.size(), nextLastId, members);
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
     @Data
     @AllArgsConstructor
     static class Result<T> {
@@ -74,6 +192,14 @@ public class MemberApiController {
         private T data;
     }
 
+    @Data
+    @AllArgsConstructor
+    static class PageResult<T> {
+        private int count;
+        private Long lastId;
+        private T data;
+    }
+
     @Data
     @AllArgsConstructor
     static class MemberDto {
@@ -107,6 +233,24 @@ public class MemberApiController {
         }
     }
 
+    enum BulkStatus {
+        CREATED, DUPLICATE, INVALID, FAILED
+    }
+
+    @Data
+    static class BulkMemberResponse {
+        private int index;      // 요청 목록에서의 위치
+        private String name;
+        private Long id;
+        private BulkStatus status;
+
+        public BulkMemberResponse(String name, Long id, BulkStatus status) {
+            this.name = name;
+            this.id = id;
+            this.status = status;
+        }
+    }
+
     @Data
     static class UpdateMemberRequest{
         private String name;
@@ -0,0 +1,39 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.admission.AdmissionControl;
+import jpabook.jpashop.monitor.ConnectionProfiler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class MonitorApiController {
+
+    private final ConnectionProfiler connectionProfiler;
+    private final AdmissionControl admissionControl;
+
+    /**
+     * 트랜잭션 메서드별 커넥션 wait / hold / sql / idle 히스토그램 (hold 합계가 큰 순서)
+     */
+    @GetMapping("/api/v1/monitor/connections")
+    public List<ConnectionProfiler.MethodSnapshot> connections() {
+        return connectionProfiler.snapshot();
+    }
+
+    @DeleteMapping("/api/v1/monitor/connections")
+    public void resetConnections() {
+        connectionProfiler.reset();
+    }
+
+    /**
+     * API 묶음별 수락/거절 건수, 실행 중인 요청 수, 남은 토큰, 최근 커넥션 대기 시간
+     */
+    @GetMapping("/api/v1/monitor/admission")
+    public AdmissionControl.Snapshot admission() {
+        return admissionControl.snapshot();
+    }
+}
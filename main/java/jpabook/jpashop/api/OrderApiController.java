@@ -10,24 +10,92 @@ import jpabook.jpashop.repository.order.query.OrderFlatDto;
 import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.DataVersions;
+import jpabook.jpashop.service.OrderCancelResult;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.OrderSubmitService;
+import jpabook.jpashop.service.archive.OrderArchiveJob;
+import jpabook.jpashop.service.archive.OrderArchiveResult;
+import jpabook.jpashop.service.query.OrderHistoryCache;
 import jpabook.jpashop.service.query.OrderQueryService;
+import jpabook.jpashop.service.query.OrderWindowPage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
+import javax.servlet.http.HttpServletResponse;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.*;
 
 import static java.util.stream.Collectors.*;
+import static jpabook.jpashop.service.DataVersions.Domain.ITEM;
+import static jpabook.jpashop.service.DataVersions.Domain.MEMBER;
+import static jpabook.jpashop.service.DataVersions.Domain.ORDER;
 
 @RestController
 @RequiredArgsConstructor
 public class OrderApiController {
 
+    private static final int MAX_WINDOW_MONTHS = 36;
+    private static final int MAX_WINDOW_PAGE_SIZE = 1000;
+    private static final int MAX_ARCHIVE_BATCH_SIZE = 1000;   // 한 번에 옮기는 주문 수 (in 쿼리 파라미터 수)
+
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final DataVersions dataVersions;
+    private final OrderQueryService orderQueryService;
+    private final OrderService orderService;
+    private final OrderArchiveJob orderArchiveJob;
+    private final OrderSubmitService orderSubmitService;
+    private final OrderHistoryCache orderHistoryCache;
+
+    /**
+     * 조건부 GET (If-None-Match)
+     * 응답 본문을 해싱하지 않고, 주문 데이터 버전으로 ETag 를 만든다. 주문/취소/보관이 커밋될 때마다 1씩 오르므로 DB 조회가 필요 없다.
+     * 응답에 회원 이름, 상품 이름도 들어가므로 회원/상품 데이터 버전도 함께 붙인다.
+     * 바뀐 것이 없으면 304 를 설정하고 true 를 반환한다. 이때 핸들러는 DTO 조회 없이 null 을 반환하면 된다.
+     * 약한(W/) ETag 를 쓴다. 톰캣은 강한 ETag 가 붙은 응답은 gzip 압축하지 않는다. (server.compression)
+     * 버전은 서버 한 대의 메모리에만 있으므로 이 ETag 는 서버를 한 대로 운영할 때만 맞다. (DataVersions 참고)
+     */
+    private boolean notModified(WebRequest webRequest) {
+        String eTag = "W/\"" + dataVersions.tag(ORDER, MEMBER, ITEM) + "\"";
+        return webRequest.checkNotModified(eTag);
+    }
+
+    /**
+     * OrderQueryDto 목록은 Accept 에 따라 JSON 또는 바이너리(application/x-jpashop-orders)로 응답한다.
+     * 중간 캐시가 한 형식의 본문을 다른 형식 요청에 돌려주지 않도록 Vary: Accept 를 붙이고, 선택될 형식을 ETag 에도 넣는다.
+     */
+    private boolean notModifiedByAccept(ServletWebRequest webRequest) {
+        varyByAccept(webRequest.getResponse());
+        String format = OrderBinaryHttpMessageConverter.isSelected(webRequest.getHeader(HttpHeaders.ACCEPT)) ? "bin" : "json";
+        String eTag = "W/\"" + dataVersions.tag(ORDER, MEMBER, ITEM) + "-" + format + "\"";
+        return webRequest.checkNotModified(eTag);
+    }
+
+    private void varyByAccept(HttpServletResponse response) {
+        if (response != null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+    }
 
     /**
      * V1 : 엔티티를 Order로 반환 했다. - 엔티티 변경 시 API 스펙이 변경되므로 잘못된 방식
@@ -42,20 +110,10 @@ public class OrderApiController {
      */
     @GetMapping("/api/v1/orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSerach());
-
-        // LAZY 로딩에 대해 터치를 한 번 해줘야 한다. 위 주석 설명 참조
-        for (Order order : all) {
-            order.getMember().getName();
-            order.getDelivery().getAddress();
-            List<OrderItem> orderItems = order.getOrderItems();
-
-            /*for (OrderItem orderItem : orderItems) {
-                orderItem.getItem().getName();
-            }*/
-            orderItems.stream().forEach(o -> o.getItem().getName()); // Lazy 강제 초기화
-        }
-        return all;
+        // OSIV 를 끈 뒤로는 컨트롤러에서 LAZY 강제 초기화를 할 수 없다.
+        // 예전에는 order.getMember().getName(), orderItem.getItem().getName() 처럼 여기서 터치했지만,
+        // 이제 OrderQueryService 가 트랜잭션 안에서 ORDER_DETAIL plan 대로 초기화해서 넘겨준다.
+        return orderQueryService.findOrdersWithItems(new OrderSerach());
     }
 
     /**
@@ -66,8 +124,11 @@ public class OrderApiController {
      * 단, Address 같은 Value Object는 노출시켜도 된다. 바뀔일이 없기 때문.
      */
     @GetMapping("/api/v2/orders")
-    public List<OrderDto> ordersV2() {
-        List<Order> orders = orderRepository.findAllByString(new OrderSerach());
+    public List<OrderDto> ordersV2(WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        List<Order> orders = orderQueryService.findOrdersWithItems(new OrderSerach()); // OSIV off - 트랜잭션 안에서 plan 대로 로딩
         List<OrderDto> result = orders.stream()
                 .map(OrderDto::new)
                 .collect(toList());
@@ -91,7 +152,10 @@ public class OrderApiController {
      * 참고 : 컬렉션 fetch join은 1개만 사용할 수 있다. 컬렉션 둘 이상에 fetch를 사용하면 안된다. 데이터가 부정합하게 조회될 수 있다.
      */
     @GetMapping("/api/v3/orders")
-    public List<OrderDto> ordersV3() {
+    public List<OrderDto> ordersV3(WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
         List<Order> orders = orderRepository.findAllWithItem();
         List<OrderDto> result = orders.stream()
                 .map(OrderDto::new)
@@ -142,14 +206,48 @@ public class OrderApiController {
     @GetMapping("/api/v3.1/orders")
     public List<OrderDto> ordersV3_page(
                 @RequestParam(value = "offset", defaultValue = "0") int offset,
-                @RequestParam(value = "limit", defaultValue = "100") int limit) {
-        List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit);
+                @RequestParam(value = "limit", defaultValue = "100") int limit,
+                WebRequest webRequest) {
+        if (notModified(webRequest)) {
+            return null;
+        }
+        List<Order> orders = orderQueryService.findOrdersWithItems(offset, limit); // ToOne fetch join + 컬렉션 batch 초기화
         List<OrderDto> result = orders.stream()
                 .map(OrderDto::new)
                 .collect(toList());
         return result;
     }
 
+    /**
+     * 기간 검색 + 커서 페이징 - from ~ to 월의 주문을 최신순으로 (기본: 최근 12개월)
+     * ex. /api/v1/orders/window?from=2024-01&to=2024-06&limit=100
+     *     다음 페이지 : &cursorDate={nextCursorDate}&cursorId={nextCursorId}
+     *
+     * 한 달에 쿼리 1번이므로 기간은 최대 MAX_WINDOW_MONTHS 개월까지만 받는다. limit 은 1 ~ MAX_WINDOW_PAGE_SIZE 로 맞춘다.
+     * cursorDate, cursorId 는 함께 있어야 한다. (cursorDate 만 있으면 같은 시각의 주문을 건너뛴다.)
+     */
+    @GetMapping("/api/v1/orders/window")
+    public OrderWindowPage ordersInWindow(
+                @RequestParam(value = "from", required = false) YearMonth from,
+                @RequestParam(value = "to", required = false) YearMonth to,
+                @RequestParam(value = "cursorDate", required = false)
+                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime cursorDate,
+                @RequestParam(value = "cursorId", required = false) Long cursorId,
+                @RequestParam(value = "limit", defaultValue = "100") int limit,
+                OrderSerach orderSearch) {
+        YearMonth toMonth = to == null ? YearMonth.now() : to;
+        YearMonth fromMonth = from == null ? toMonth.minusMonths(11) : from;
+        if (fromMonth.isAfter(toMonth) || fromMonth.plusMonths(MAX_WINDOW_MONTHS).isBefore(toMonth.plusMonths(1))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "from ~ to 는 1 ~ " + MAX_WINDOW_MONTHS + "개월이어야 합니다. from=" + fromMonth + ", to=" + toMonth);
+        }
+        if ((cursorDate == null) != (cursorId == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursorDate 와 cursorId 는 함께 보내야 합니다.");
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_WINDOW_PAGE_SIZE));
+        return orderQueryService.findOrdersInWindow(orderSearch, fromMonth, toMonth, cursorDate, cursorId, pageSize);
+    }
+
     /**
      * V4 : JPA에서 DTO로 직접 조회
      * Query: 루트 1번, 컬렉션 N번 실행
@@ -163,7 +261,10 @@ public class OrderApiController {
      * findOrderQueryDtos() 메서드에서 loop을 돌며 N + 1 문제 존재
      */
     @GetMapping("/api/v4/orders")
-    public List<OrderQueryDto> ordersV4() {
+    public List<OrderQueryDto> ordersV4(ServletWebRequest webRequest) {
+        if (notModifiedByAccept(webRequest)) {
+            return null;
+        }
         return orderQueryRepository.findOrderQueryDtos();
     }
 
@@ -174,7 +275,10 @@ public class OrderApiController {
      * MAP을 사용해서 매칭 성능 향상 (O(1))
      */
     @GetMapping("/api/v5/orders")
-    public List<OrderQueryDto> ordersV5() {
+    public List<OrderQueryDto> ordersV5(ServletWebRequest webRequest) {
+        if (notModifiedByAccept(webRequest)) {
+            return null;
+        }
         return orderQueryRepository.findAllByDto_optimization();
     }
 
@@ -189,7 +293,10 @@ public class OrderApiController {
      * - 페이징 불가능(Order를 기준으로는 불가능)
      */
     @GetMapping("/api/v6/orders")
-    public List<OrderQueryDto> findAllByDto_flat() {
+    public List<OrderQueryDto> findAllByDto_flat(ServletWebRequest webRequest) {
+        if (notModifiedByAccept(webRequest)) {
+            return null;
+        }
         List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
 
         // 개발자가 직접 분해하고 조립하여 해결가능
@@ -201,7 +308,96 @@ public class OrderApiController {
                 .collect(toList());
     }
 
-    private final OrderQueryService orderQueryService;
+    /**
+     * 회원별 주문 내역 - 같은 회원이 반복해서 조회하므로 캐시에서 꺼내준다.
+     * 주문/취소가 커밋되면 해당 회원의 캐시가 지워진다. (OrderChangedEvent)
+     */
+    @GetMapping("/api/v1/members/{memberId}/orders")
+    public List<OrderQueryDto> memberOrderHistory(@PathVariable("memberId") Long memberId, HttpServletResponse response) {
+        varyByAccept(response);
+        return orderHistoryCache.get(memberId, orderQueryRepository::findOrdersByMember);
+    }
+
+    @GetMapping("/api/v1/cache/order-history")
+    public OrderHistoryCache.Stats orderHistoryCacheStats() {
+        return orderHistoryCache.stats();
+    }
+
+    /**
+     * 주문 - Idempotency-Key 헤더가 같은 요청은 다시 주문하지 않고 처음 주문의 id 를 돌려준다.
+     */
+    @PostMapping("/api/v1/orders")
+    public CreateOrderResponse createOrder(@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                           @RequestBody CreateOrderRequest request) {
+        Long orderId = orderSubmitService.submit(idempotencyKey, request.getMemberId(), request.getItemId(), request.getCount());
+        return new CreateOrderResponse(orderId);
+    }
+
+    @Data
+    static class CreateOrderRequest {
+        private Long memberId;
+        private Long itemId;
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long orderId;
+    }
+
+    /**
+     * 대량 주문 취소 - 배송 완료, 이미 취소된 주문, 없는 주문은 건너뛰고 결과에 따로 담는다.
+     */
+    @PostMapping("/api/v1/orders/cancel")
+    public OrderCancelResult cancelOrders(@RequestBody CancelOrdersRequest request) {
+        return orderService.cancelOrders(request.getOrderIds());
+    }
+
+    @Data
+    static class CancelOrdersRequest {
+        private List<Long> orderIds = new ArrayList<>();
+    }
+
+    /**
+     * 주문 1건 - 주문 테이블에 없으면 보관 테이블에서 찾는다.
+     */
+    @GetMapping("/api/v1/orders/{orderId}")
+    public ResponseEntity<jpabook.jpashop.service.query.OrderDto> order(@PathVariable("orderId") Long orderId) {
+        return ResponseEntity.of(orderQueryService.findOrder(orderId));
+    }
+
+    /**
+     * 주문한 지 days 일이 지난 취소/배송완료 주문을 보관 테이블로 옮긴다.
+     * days 는 1 이상이어야 하고(0 이하면 오늘 주문까지 옮겨진다), batchSize 는 1 ~ MAX_ARCHIVE_BATCH_SIZE 로 맞춘다.
+     */
+    @PostMapping("/api/v1/orders/archive")
+    public OrderArchiveResult archiveOrders(@RequestParam(value = "days", defaultValue = "90") int days,
+                                            @RequestParam(value = "batchSize", defaultValue = "500") int batchSize) {
+        if (days < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "days 는 1 이상이어야 합니다. days=" + days);
+        }
+        return orderArchiveJob.run(Duration.ofDays(days), archiveBatchSize(batchSize));
+    }
+
+    /**
+     * 월 단위 보관 - retainFrom(yyyy-MM) 이전 월의 취소/배송완료 주문을 보관 테이블로 옮긴다.
+     * retainFrom 은 이번 달 이전이어야 한다. (이번 달 주문은 남긴다.)
+     */
+    @PostMapping("/api/v1/orders/archive/months")
+    public OrderArchiveResult archiveMonths(@RequestParam("retainFrom") YearMonth retainFrom,
+                                            @RequestParam(value = "batchSize", defaultValue = "500") int batchSize) {
+        if (retainFrom.isAfter(YearMonth.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "retainFrom 은 이번 달 이전이어야 합니다. retainFrom=" + retainFrom);
+        }
+        return orderArchiveJob.runBefore(retainFrom, archiveBatchSize(batchSize));
+    }
+
+    private static int archiveBatchSize(int batchSize) {
+        return Math.max(1, Math.min(batchSize, MAX_ARCHIVE_BATCH_SIZE));
+    }
+
     @GetMapping("/api/v2-osiv/orders")
     public List<jpabook.jpashop.service.query.OrderDto> ordersV3_OSIV_false() {
         return orderQueryService.ordersV2_OSIV_false();
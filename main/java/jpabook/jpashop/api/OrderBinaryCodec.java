@@ -0,0 +1,263 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 주문 목록(List<OrderQueryDto>) 바이너리 인코딩
+ *
+ * JSON 은 주문마다 필드 이름, 날짜 문자열, 같은 상품 이름을 반복해서 보낸다.
+ * 이 형식은 스키마가 고정되어 있으므로 필드 이름이 없고, 문자열은 사전(dictionary)에 한 번만 넣고 번호로 참조한다.
+ *
+ * [레이아웃] (varint = 7비트 가변 길이 정수, zigzag = 음수도 짧게 쓰는 varint)
+ * magic 'J' 'O', version(1)
+ * 사전 크기(varint), 사전 문자열 * N (길이 varint + UTF-8)
+ * 주문 수(varint)
+ * 주문 * N
+ *   flags(1byte) - 0x1 orderId, 0x2 orderDate, 0x4 address, 0x8 orderItems 가 있음
+ *   orderId     - 이전 주문 id 와의 차이 (zigzag)
+ *   name        - 사전 번호 + 1 (0 = null)
+ *   orderDate   - epoch millis(UTC), 이전 주문 날짜와의 차이 (zigzag)
+ *   orderStatus - 사전 번호 + 1
+ *   address     - city, street, zipcode 사전 번호 + 1
+ *   orderItems  - 개수(varint), 주문상품 * N (itemName 사전 번호 + 1, orderPrice zigzag, count zigzag)
+ *
+ * 날짜는 밀리초까지만 보낸다. (LocalDateTime 을 UTC 로 간주)
+ * 주문상품의 orderId 는 보내지 않고, 읽을 때 주문의 id 로 채운다.
+ */
+public final class OrderBinaryCodec {
+
+    private static final int MAGIC_0 = 'J';
+    private static final int MAGIC_1 = 'O';
+    private static final int VERSION = 1;
+
+    private static final int HAS_ORDER_ID = 0x1;
+    private static final int HAS_ORDER_DATE = 0x2;
+    private static final int HAS_ADDRESS = 0x4;
+    private static final int HAS_ORDER_ITEMS = 0x8;
+
+    private OrderBinaryCodec() {
+    }
+
+    public static void write(List<OrderQueryDto> orders, OutputStream out) throws IOException {
+        Map<String, Integer> dictionary = buildDictionary(orders);
+
+        out.write(MAGIC_0);
+        out.write(MAGIC_1);
+        out.write(VERSION);
+
+        writeVarLong(out, dictionary.size());
+        for (String value : dictionary.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+
+        writeVarLong(out, orders.size());
+        long prevOrderId = 0;
+        long prevMillis = 0;
+        for (OrderQueryDto order : orders) {
+            int flags = (order.getOrderId() != null ? HAS_ORDER_ID : 0)
+                    | (order.getOrderDate() != null ? HAS_ORDER_DATE : 0)
+                    | (order.getAddress() != null ? HAS_ADDRESS : 0)
+                    | (order.getOrderItems() != null ? HAS_ORDER_ITEMS : 0);
+            out.write(flags);
+
+            if (order.getOrderId() != null) {
+                writeZigZag(out, order.getOrderId() - prevOrderId);
+                prevOrderId = order.getOrderId();
+            }
+            writeRef(out, dictionary, order.getName());
+            if (order.getOrderDate() != null) {
+                long millis = order.getOrderDate().toInstant(ZoneOffset.UTC).toEpochMilli();
+                writeZigZag(out, millis - prevMillis);
+                prevMillis = millis;
+            }
+            writeRef(out, dictionary, order.getOrderStatus() == null ? null : order.getOrderStatus().name());
+            if (order.getAddress() != null) {
+                writeRef(out, dictionary, order.getAddress().getCity());
+                writeRef(out, dictionary, order.getAddress().getStreet());
+                writeRef(out, dictionary, order.getAddress().getZipcode());
+            }
+            if (order.getOrderItems() != null) {
+                writeVarLong(out, order.getOrderItems().size());
+                for (OrderItemQueryDto item : order.getOrderItems()) {
+                    writeRef(out, dictionary, item.getItemName());
+                    writeZigZag(out, item.getOrderPrice());
+                    writeZigZag(out, item.getCount());
+                }
+            }
+        }
+    }
+
+    public static List<OrderQueryDto> read(InputStream in) throws IOException {
+        if (readByte(in) != MAGIC_0 || readByte(in) != MAGIC_1) {
+            throw new IOException("주문 바이너리 형식이 아닙니다.");
+        }
+        int version = readByte(in);
+        if (version != VERSION) {
+            throw new IOException("지원하지 않는 버전입니다. version=" + version);
+        }
+
+        int dictionarySize = readLength(in);
+        String[] dictionary = new String[dictionarySize];
+        for (int i = 0; i < dictionarySize; i++) {
+            byte[] bytes = new byte[readLength(in)];
+            readFully(in, bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int orderCount = readLength(in);
+        List<OrderQueryDto> orders = new ArrayList<>(orderCount);
+        long prevOrderId = 0;
+        long prevMillis = 0;
+        for (int i = 0; i < orderCount; i++) {
+            int flags = readByte(in);
+
+            Long orderId = null;
+            if ((flags & HAS_ORDER_ID) != 0) {
+                prevOrderId += readZigZag(in);
+                orderId = prevOrderId;
+            }
+            String name = readRef(in, dictionary);
+            LocalDateTime orderDate = null;
+            if ((flags & HAS_ORDER_DATE) != 0) {
+                prevMillis += readZigZag(in);
+                orderDate = LocalDateTime.ofInstant(Instant.ofEpochMilli(prevMillis), ZoneOffset.UTC);
+            }
+            String status = readRef(in, dictionary);
+            Address address = null;
+            if ((flags & HAS_ADDRESS) != 0) {
+                address = new Address(readRef(in, dictionary), readRef(in, dictionary), readRef(in, dictionary));
+            }
+            List<OrderItemQueryDto> orderItems = null;
+            if ((flags & HAS_ORDER_ITEMS) != 0) {
+                int itemCount = readLength(in);
+                orderItems = new ArrayList<>(itemCount);
+                for (int j = 0; j < itemCount; j++) {
+                    String itemName = readRef(in, dictionary);
+                    int orderPrice = (int) readZigZag(in);
+                    int count = (int) readZigZag(in);
+                    orderItems.add(new OrderItemQueryDto(orderId, itemName, orderPrice, count));
+                }
+            }
+            orders.add(new OrderQueryDto(orderId, name, orderDate,
+                    status == null ? null : OrderStatus.valueOf(status), address, orderItems));
+        }
+        return orders;
+    }
+
+    /**
+     * 등장 순서대로 번호를 매긴 문자열 사전
+     */
+    private static Map<String, Integer> buildDictionary(List<OrderQueryDto> orders) {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (OrderQueryDto order : orders) {
+            addWord(dictionary, order.getName());
+            addWord(dictionary, order.getOrderStatus() == null ? null : order.getOrderStatus().name());
+            if (order.getAddress() != null) {
+                addWord(dictionary, order.getAddress().getCity());
+                addWord(dictionary, order.getAddress().getStreet());
+                addWord(dictionary, order.getAddress().getZipcode());
+            }
+            if (order.getOrderItems() != null) {
+                for (OrderItemQueryDto item : order.getOrderItems()) {
+                    addWord(dictionary, item.getItemName());
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    private static void addWord(Map<String, Integer> dictionary, String value) {
+        if (value != null) {
+            dictionary.putIfAbsent(value, dictionary.size());
+        }
+    }
+
+    private static void writeRef(OutputStream out, Map<String, Integer> dictionary, String value) throws IOException {
+        writeVarLong(out, value == null ? 0 : dictionary.get(value) + 1);
+    }
+
+    private static String readRef(InputStream in, String[] dictionary) throws IOException {
+        int ref = readLength(in);
+        if (ref == 0) {
+            return null;
+        }
+        if (ref > dictionary.length) {
+            throw new IOException("사전 번호가 범위를 벗어났습니다. ref=" + ref);
+        }
+        return dictionary[ref - 1];
+    }
+
+    private static void writeZigZag(OutputStream out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readZigZag(InputStream in) throws IOException {
+        long raw = readVarLong(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte(in);
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IOException("잘못된 varint 입니다.");
+    }
+
+    private static int readLength(InputStream in) throws IOException {
+        long value = readVarLong(in);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IOException("잘못된 길이입니다. length=" + value);
+        }
+        return (int) value;
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private static void readFully(InputStream in, byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            int read = in.read(bytes, offset, bytes.length - offset);
+            if (read < 0) {
+                throw new EOFException();
+            }
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package jpabook.jpashop.api;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * 주문 바이너리 컨버터는 JSON 컨버터 뒤에 둔다.
+ * Accept 가 없거나 *&#47;* 이면 지금처럼 JSON, application/x-jpashop-orders 를 명시한 요청만 바이너리로 응답한다.
+ */
+@Configuration
+public class OrderBinaryConverterConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new OrderBinaryHttpMessageConverter());
+    }
+}
@@ -0,0 +1,109 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Accept: application/x-jpashop-orders 요청에는 주문 목록(List<OrderQueryDto>)을 OrderBinaryCodec 형식으로 응답한다.
+ * 그 외에는 지금처럼 JSON 으로 응답한다. (/api/v4/orders, /api/v5/orders, /api/v1/members/{memberId}/orders 등)
+ *
+ * 빈으로 등록하면 스프링 부트가 기본 컨버터들 앞에 두어서 Accept: *&#47;* 요청까지 바이너리로 응답하게 되므로,
+ * OrderBinaryConverterConfig 에서 컨버터 목록의 맨 뒤에 추가한다.
+ */
+public class OrderBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<List<OrderQueryDto>> {
+
+    public static final String ORDERS_VALUE = "application/x-jpashop-orders";
+    public static final MediaType ORDERS = MediaType.parseMediaType(ORDERS_VALUE);
+
+    public OrderBinaryHttpMessageConverter() {
+        super(ORDERS);
+    }
+
+    /**
+     * Accept 헤더로 협상했을 때 이 컨버터가 선택되는지. (ETag 를 응답 형식별로 나누는 데 사용)
+     * 컨버터가 JSON 뒤에 있으므로, 우선순위가 가장 높은 타입이 JSON 과도 호환되면(*&#47;*, application/*) JSON 이 선택된다.
+     */
+    static boolean isSelected(@Nullable String accept) {
+        if (!StringUtils.hasText(accept)) {
+            return false;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (mediaType.isCompatibleWith(ORDERS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return isOrderList(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, Class<?> clazz, @Nullable MediaType mediaType) {
+        return isOrderList(type) && canWrite(mediaType);
+    }
+
+    /**
+     * 제네릭 타입 정보가 없는 List 는 원소 타입을 알 수 없으므로 처리하지 않는다.
+     */
+    private boolean isOrderList(@Nullable Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return false;
+        }
+        ParameterizedType parameterizedType = (ParameterizedType) type;
+        return parameterizedType.getRawType() instanceof Class
+                && List.class.isAssignableFrom((Class<?>) parameterizedType.getRawType())
+                && parameterizedType.getActualTypeArguments()[0] == OrderQueryDto.class;
+    }
+
+    @Override
+    protected void writeInternal(List<OrderQueryDto> orders, @Nullable Type type, HttpOutputMessage outputMessage) throws IOException {
+        OutputStream out = new BufferedOutputStream(outputMessage.getBody(), 8192);
+        OrderBinaryCodec.write(orders, out);
+        out.flush();
+    }
+
+    @Override
+    public List<OrderQueryDto> read(Type type, @Nullable Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(null, inputMessage);
+    }
+
+    @Override
+    protected List<OrderQueryDto> readInternal(Class<? extends List<OrderQueryDto>> clazz, HttpInputMessage inputMessage) throws IOException {
+        return OrderBinaryCodec.read(new BufferedInputStream(inputMessage.getBody(), 8192));
+    }
+}
@@ -0,0 +1,190 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.service.query.OrderItemDto;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * 주문 DTO 전용 Jackson 직렬화
+ *
+ * 기본 BeanSerializer 는 원소마다 getter 를 리플렉션(또는 생성된 accessor)으로 호출하고, LocalDateTime 은
+ * 직렬화기를 찾아 포맷팅한다. 주문 목록 API 는 수천~수만 건을 내려주므로 이 비용이 CPU 상위를 차지한다.
+ * 여기서는 필드 이름을 미리 인코딩한 SerializedString 으로 두고, JsonGenerator 로 필드를 직접 쓴다.
+ *
+ * 출력 JSON 은 기본 직렬화와 같다. (필드 순서, null 처리, @JsonIgnore 된 OrderItemQueryDto.orderId 제외 포함)
+ * DTO 에 필드를 추가하면 여기에도 추가해야 한다. - OrderJsonModuleTest 에서 기본 직렬화 결과와 비교한다.
+ *
+ * Module 타입의 빈은 스프링 부트가 ObjectMapper 에 자동으로 등록한다.
+ */
+@Component
+public class OrderJsonModule extends SimpleModule {
+
+    private static final SerializedString ORDER_ID = new SerializedString("orderId");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString ORDER_DATE = new SerializedString("orderDate");
+    private static final SerializedString ORDER_STATUS = new SerializedString("orderStatus");
+    private static final SerializedString ADDRESS = new SerializedString("address");
+    private static final SerializedString ORDER_ITEMS = new SerializedString("orderItems");
+    private static final SerializedString CITY = new SerializedString("city");
+    private static final SerializedString STREET = new SerializedString("street");
+    private static final SerializedString ZIPCODE = new SerializedString("zipcode");
+    private static final SerializedString ITEM_NAME = new SerializedString("itemName");
+    private static final SerializedString ORDER_PRICE = new SerializedString("orderPrice");
+    private static final SerializedString COUNT = new SerializedString("count");
+
+    public OrderJsonModule() {
+        super("OrderJsonModule");
+
+        addSerializer(OrderQueryDto.class, new StdSerializer<OrderQueryDto>(OrderQueryDto.class) {
+            @Override
+            public void serialize(OrderQueryDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                writeOrder(gen, dto.getOrderId(), dto.getName(), dto.getOrderDate(), dto.getOrderStatus(), dto.getAddress(),
+                        dto.getOrderItems(), OrderJsonModule::writeOrderItem);
+            }
+        });
+        addSerializer(OrderItemQueryDto.class, itemSerializer(OrderItemQueryDto.class, OrderJsonModule::writeOrderItem));
+
+        addSerializer(jpabook.jpashop.service.query.OrderDto.class,
+                new StdSerializer<jpabook.jpashop.service.query.OrderDto>(jpabook.jpashop.service.query.OrderDto.class) {
+            @Override
+            public void serialize(jpabook.jpashop.service.query.OrderDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                writeOrder(gen, dto.getOrderId(), dto.getName(), dto.getOrderDate(), dto.getOrderStatus(), dto.getAddress(),
+                        dto.getOrderItems(), OrderJsonModule::writeOrderItem);
+            }
+        });
+        addSerializer(OrderItemDto.class, itemSerializer(OrderItemDto.class, OrderJsonModule::writeOrderItem));
+
+        addSerializer(OrderApiController.OrderDto.class, new StdSerializer<OrderApiController.OrderDto>(OrderApiController.OrderDto.class) {
+            @Override
+            public void serialize(OrderApiController.OrderDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                writeOrder(gen, dto.getOrderId(), dto.getName(), dto.getOrderDate(), dto.getOrderStatus(), dto.getAddress(),
+                        dto.getOrderItems(), OrderJsonModule::writeOrderItem);
+            }
+        });
+        addSerializer(OrderApiController.OrderItemDto.class,
+                itemSerializer(OrderApiController.OrderItemDto.class, OrderJsonModule::writeOrderItem));
+
+        addSerializer(OrderSimpleApiController.SimpleOrderDto.class,
+                new StdSerializer<OrderSimpleApiController.SimpleOrderDto>(OrderSimpleApiController.SimpleOrderDto.class) {
+            @Override
+            public void serialize(OrderSimpleApiController.SimpleOrderDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                gen.writeStartObject();
+                writeOrderFields(gen, dto.getOrderId(), dto.getName(), dto.getOrderDate(), dto.getOrderStatus(), dto.getAddress());
+                gen.writeEndObject();
+            }
+        });
+    }
+
+    /**
+     * 주문상품 DTO 는 타입마다 따로 있으므로(OrderItemQueryDto, OrderItemDto, OrderApiController.OrderItemDto) 쓰는 방법만 받는다.
+     */
+    @FunctionalInterface
+    private interface OrderItemWriter<T> {
+        void write(JsonGenerator gen, T item) throws IOException;
+    }
+
+    private static <T> StdSerializer<T> itemSerializer(Class<T> type, OrderItemWriter<T> itemWriter) {
+        return new StdSerializer<T>(type) {
+            @Override
+            public void serialize(T item, JsonGenerator gen, SerializerProvider provider) throws IOException {
+                itemWriter.write(gen, item);
+            }
+        };
+    }
+
+    /**
+     * 주문 + 주문상품 목록 (orderItems 가 null 이면 null 로 쓴다.)
+     */
+    private static <T> void writeOrder(JsonGenerator gen, Long orderId, String name, LocalDateTime orderDate,
+                                       OrderStatus orderStatus, Address address,
+                                       List<T> orderItems, OrderItemWriter<T> itemWriter) throws IOException {
+        gen.writeStartObject();
+        writeOrderFields(gen, orderId, name, orderDate, orderStatus, address);
+        gen.writeFieldName(ORDER_ITEMS);
+        if (orderItems == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartArray();
+            for (T item : orderItems) {
+                itemWriter.write(gen, item);
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+    }
+
+    /**
+     * 주문 공통 필드 (orderId, name, orderDate, orderStatus, address)
+     */
+    private static void writeOrderFields(JsonGenerator gen, Long orderId, String name, LocalDateTime orderDate,
+                                         OrderStatus orderStatus, Address address) throws IOException {
+        gen.writeFieldName(ORDER_ID);
+        if (orderId == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(orderId.longValue());
+        }
+        gen.writeFieldName(NAME);
+        gen.writeString(name);
+        gen.writeFieldName(ORDER_DATE);
+        if (orderDate == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(orderDate)); // 기본 LocalDateTimeSerializer 와 같은 형식
+        }
+        gen.writeFieldName(ORDER_STATUS);
+        gen.writeString(orderStatus == null ? null : orderStatus.name());
+        gen.writeFieldName(ADDRESS);
+        if (address == null) {
+            gen.writeNull();
+        } else {
+            gen.writeStartObject();
+            gen.writeFieldName(CITY);
+            gen.writeString(address.getCity());
+            gen.writeFieldName(STREET);
+            gen.writeString(address.getStreet());
+            gen.writeFieldName(ZIPCODE);
+            gen.writeString(address.getZipcode());
+            gen.writeEndObject();
+        }
+    }
+
+    private static void writeOrderItem(JsonGenerator gen, OrderItemQueryDto item) throws IOException {
+        writeOrderItem(gen, item.getItemName(), item.getOrderPrice(), item.getCount());
+    }
+
+    private static void writeOrderItem(JsonGenerator gen, OrderItemDto item) throws IOException {
+        writeOrderItem(gen, item.getItemName(), item.getOrderPrice(), item.getCount());
+    }
+
+    private static void writeOrderItem(JsonGenerator gen, OrderApiController.OrderItemDto item) throws IOException {
+        writeOrderItem(gen, item.getItemName(), item.getOrderPrice(), item.getCount());
+    }
+
+    /**
+     * 주문상품 (itemName, orderPrice, count)
+     */
+    private static void writeOrderItem(JsonGenerator gen, String itemName, int orderPrice, int count) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(ITEM_NAME);
+        gen.writeString(itemName);
+        gen.writeFieldName(ORDER_PRICE);
+        gen.writeNumber(orderPrice);
+        gen.writeFieldName(COUNT);
+        gen.writeNumber(count);
+        gen.writeEndObject();
+    }
+}
@@ -7,6 +7,7 @@ import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSerach;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.query.OrderQueryService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -29,23 +30,22 @@ public class OrderSimpleApiController {
 
     private final OrderRepository orderRepository;
     private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderQueryService orderQueryService;
 
     /**
      * V1 : 엔티티를 Order로 반환 했다. - 엔티티 변경 시 API 스펙이 변경되므로 잘못된 방식
      */
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1(){
-        List<Order> all = orderRepository.findAllByString(new OrderSerach());
-        for(Order order : all){
-            /**
-             * order.getMember() 꺄지는 proxy 객체 (DB에 쿼리가 날라가지 않는다.)
-             * order.getMember().getName() 까지 하면, Lazy 강제 초기화가 된다.
-             * 그래서 Member에 쿼리를 날려서 JPA가 데이터를 다 긁어온다.
-             */
-            order.getMember().getName();    // Lazy 강제 초기화
-            order.getDelivery().getAddress();   // Lazy 강제 초기화
-        }
-        return all;
+        /**
+         * order.getMember() 꺄지는 proxy 객체 (DB에 쿼리가 날라가지 않는다.)
+         * order.getMember().getName() 까지 하면, Lazy 강제 초기화가 된다.
+         * 그래서 Member에 쿼리를 날려서 JPA가 데이터를 다 긁어온다.
+         *
+         * OSIV 를 끈 뒤로는 컨트롤러에서 강제 초기화를 할 수 없으므로,
+         * OrderQueryService 가 트랜잭션 안에서 ORDER_SUMMARY plan(member, delivery)대로 로딩해서 넘겨준다.
+         */
+        return orderQueryService.findOrdersWithMemberDelivery(new OrderSerach());
     }
 
     /**
@@ -66,10 +66,10 @@ public class OrderSimpleApiController {
          * ex. userA가 주문하고, userA가 다시 주문할 때
          *      이미 영속성 컨텍스트에 member id를 갖고 있으므로 DB를 거치지 않고, 영속성 컨텍스트에 있는 값을 가져온다.
          */
-       List<Order> orders = orderRepository.findAllByString(new OrderSerach());
-
-       // InitDb에서 두 번의 주문을 넣었다.
-        // 성능 최적화가 되지 않은 상태이기 때문에 member와 delivery 쿼리가 2번씩 나간다.
+        // InitDb에서 두 번의 주문을 넣었다.
+        // 성능 최적화가 되지 않은 상태에서는 member와 delivery 쿼리가 2번씩 나갔다.
+        // OSIV 를 끈 뒤로는 DTO 변환 전에 OrderQueryService 가 트랜잭션 안에서 member, delivery 를 fetch join 해서 넘겨준다.
+        List<Order> orders = orderQueryService.findOrdersWithMemberDelivery(new OrderSerach());
         List<SimpleOrderDto> result = orders.stream()
                 .map(SimpleOrderDto::new) //.map(o -> new SimpleOrderDto(o))
                 .collect(toList());
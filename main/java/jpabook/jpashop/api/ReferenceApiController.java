@@ -0,0 +1,38 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.service.reference.ReferenceDataService;
+import jpabook.jpashop.service.reference.ReferenceDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 주문 화면 자동완성 - 이름 앞부분으로 회원, 상품을 찾는다. (DB 조회 없음)
+ */
+@RestController
+@RequiredArgsConstructor
+public class ReferenceApiController {
+
+    private static final int MAX_LIMIT = 100;   // 자동완성 최대 건수 (limit 은 1 ~ MAX_LIMIT 로 맞춘다.)
+
+    private final ReferenceDataService referenceDataService;
+
+    @GetMapping("/api/v1/reference/members")
+    public List<ReferenceDto> members(@RequestParam(value = "q", defaultValue = "") String query,
+                                      @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return referenceDataService.searchMembers(query, limit(limit));
+    }
+
+    @GetMapping("/api/v1/reference/items")
+    public List<ReferenceDto> items(@RequestParam(value = "q", defaultValue = "") String query,
+                                    @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return referenceDataService.searchItems(query, limit(limit));
+    }
+
+    private static int limit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+}
@@ -0,0 +1,28 @@
+package jpabook.jpashop.audit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 주문 이벤트 로그 설정
+ *
+ * jpashop.audit.dir               : 세그먼트 파일 디렉토리 (필수, application.yml)
+ *                                   임시 디렉토리는 OS 가 지울 수 있으므로 기본값으로 두지 않는다.
+ * jpashop.audit.segment-size      : 세그먼트 크기 (기본 16MB, 레코드 약 45만 건)
+ * jpashop.audit.force-interval-ms : fsync 주기 (기본 10ms)
+ */
+@Configuration
+public class OrderAuditConfig {
+
+    @Bean(destroyMethod = "close")
+    public OrderAuditLog orderAuditLog(
+            @Value("${jpashop.audit.dir}") String directory,
+            @Value("${jpashop.audit.segment-size:16777216}") int segmentSize,
+            @Value("${jpashop.audit.force-interval-ms:10}") long forceIntervalMillis) throws IOException {
+        return new OrderAuditLog(Paths.get(directory), segmentSize, forceIntervalMillis);
+    }
+}
@@ -0,0 +1,272 @@
+package jpabook.jpashop.audit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 주문 이벤트 로그 - 추가만 하는(append-only) 메모리 매핑 세그먼트 파일
+ *
+ * 1. append : 매핑된 버퍼에 레코드를 복사만 한다. (디스크 I/O, DB 왕복 없음)
+ * 2. fsync  : 백그라운드 스레드가 forceIntervalMillis 마다 그동안 쌓인 레코드를 한 번에 force 한다. (group commit)
+ *    프로세스가 죽어도 OS 페이지 캐시에 있는 레코드는 남는다. 장비가 죽으면 마지막 fsync 이후 레코드는 잃을 수 있다.
+ *    꼭 디스크에 남아야 하는 시점에는 sync() 를 호출한다.
+ *
+ * 세그먼트가 가득 차면 force 후 다음 세그먼트(orders-00000002.log ...)로 넘어간다.
+ * 레코드마다 CRC 를 붙이므로 쓰다 만 레코드(torn write)는 읽을 때 버리고, 다시 열면 그 자리부터 이어서 쓴다.
+ *
+ * 두 프로세스가 같은 세그먼트에 쓰면 서로의 레코드를 덮어쓰므로, 디렉토리의 orders.lock 파일에 락을 잡고 쓴다.
+ * 이미 다른 프로세스가 락을 잡고 있으면 열지 않고 예외를 던진다. (애플리케이션 시작 실패)
+ */
+@Slf4j
+public class OrderAuditLog implements Closeable {
+
+    private static final String PREFIX = "orders-";
+    private static final String SUFFIX = ".log";
+    private static final String LOCK_FILE = "orders.lock";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ScheduledExecutorService flusher;
+    private final CRC32 crc = new CRC32();
+    private final Object lock = new Object();
+    private final FileChannel lockChannel;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int segmentIndex;
+    private long appended;          // 지금까지 추가한 레코드 수 (이번 실행 기준)
+    private long durable;           // 그중 force 된 레코드 수
+    private boolean closed;
+
+    public OrderAuditLog(Path directory, int segmentSize, long forceIntervalMillis) throws IOException {
+        if (segmentSize < OrderAuditRecord.SIZE) {
+            throw new IllegalArgumentException("segmentSize must be >= " + OrderAuditRecord.SIZE);
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        this.lockChannel = lockDirectory(this.directory);
+
+        try {
+            List<Path> segments = segments(directory);
+            if (segments.isEmpty()) {
+                openSegment(1);
+            } else {
+                Path last = segments.get(segments.size() - 1);
+                openSegment(indexOf(last));
+                buffer.position(validLength(buffer));
+            }
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-audit-fsync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::forceQuietly, forceIntervalMillis, forceIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return 레코드 번호 (sync() 의 반환값과 비교해서 디스크에 남았는지 확인할 수 있다.)
+     */
+    public long append(OrderAuditRecord record) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("order audit log is closed");
+            }
+            if (buffer.remaining() < OrderAuditRecord.SIZE) {
+                roll();
+            }
+            int start = buffer.position();
+            record.writeTo(buffer);
+
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(start);
+            payload.limit(start + OrderAuditRecord.PAYLOAD_SIZE);
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt((int) crc.getValue());
+            return ++appended;
+        }
+    }
+
+    /**
+     * 지금까지 추가한 레코드를 디스크에 force 한다.
+     *
+     * @return force 된 레코드 수
+     */
+    public long sync() {
+        long target;
+        MappedByteBuffer current;
+        synchronized (lock) {
+            if (durable == appended) {
+                return durable;
+            }
+            target = appended;
+            current = buffer;
+        }
+        current.force();    // 락 밖에서 - force 하는 동안에도 append 할 수 있다.
+        synchronized (lock) {
+            durable = Math.max(durable, target);
+            return durable;
+        }
+    }
+
+    public long getAppended() {
+        synchronized (lock) {
+            return appended;
+        }
+    }
+
+    public long getDurable() {
+        synchronized (lock) {
+            return durable;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (lock) {
+            buffer.force();
+            durable = appended;
+            channel.close();
+            lockChannel.close();    // 락도 함께 풀린다.
+        }
+    }
+
+    /**
+     * 세그먼트를 순서대로 읽는다. 빈 공간이나 CRC 가 맞지 않는 레코드(쓰다 만 레코드)를 만나면 그 세그먼트는 끝난 것으로 본다.
+     */
+    public static void read(Path directory, Consumer<OrderAuditRecord> consumer) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        for (Path segment : segments(directory)) {
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                int end = validLength(mapped);
+                mapped.position(0);
+                while (mapped.position() < end) {
+                    OrderAuditRecord record = OrderAuditRecord.readFrom(mapped);
+                    mapped.getInt();    // crc
+                    consumer.accept(record);
+                }
+            }
+        }
+    }
+
+    private void roll() {
+        buffer.force();
+        try {
+            channel.close();
+            openSegment(segmentIndex + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        durable = appended;     // 이전 세그먼트까지는 force 됐다.
+    }
+
+    /**
+     * 같은 JVM 안에서 이미 락을 잡은 경우에는 tryLock 이 null 대신 OverlappingFileLockException 을 던진다.
+     */
+    private static FileChannel lockDirectory(Path directory) throws IOException {
+        FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock fileLock;
+        try {
+            fileLock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            fileLock = null;
+        } catch (IOException | RuntimeException e) {
+            lockChannel.close();
+            throw e;
+        }
+        if (fileLock == null) {
+            lockChannel.close();
+            throw new IllegalStateException("order audit log is already in use by another process. dir=" + directory.toAbsolutePath());
+        }
+        return lockChannel;
+    }
+
+    private void openSegment(int index) throws IOException {
+        Path path = directory.resolve(String.format("%s%08d%s", PREFIX, index, SUFFIX));
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        segmentIndex = index;
+    }
+
+    private void forceQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("order audit log force failed", e);
+        }
+    }
+
+    /**
+     * 세그먼트 앞에서부터 CRC 가 맞는 레코드까지의 길이
+     */
+    private static int validLength(ByteBuffer segment) {
+        CRC32 crc = new CRC32();
+        int position = 0;
+        while (position + OrderAuditRecord.SIZE <= segment.limit() && segment.get(position) != 0) {
+            ByteBuffer payload = segment.duplicate();
+            payload.position(position);
+            payload.limit(position + OrderAuditRecord.PAYLOAD_SIZE);
+            crc.reset();
+            crc.update(payload);
+            if (segment.getInt(position + OrderAuditRecord.PAYLOAD_SIZE) != (int) crc.getValue()) {
+                break;
+            }
+            position += OrderAuditRecord.SIZE;
+        }
+        return position;
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+
+    private static int indexOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
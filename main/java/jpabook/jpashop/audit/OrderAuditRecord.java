@@ -0,0 +1,84 @@
+package jpabook.jpashop.audit;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 주문 이벤트 로그의 레코드 1건 - 고정 길이(SIZE) 바이너리로 저장한다.
+ *
+ * | type(1) | timestamp(8) | orderId(8) | refId(8) | price(4) | count(4) | crc32(4) |
+ *
+ * refId 는 타입마다 의미가 다르다. CREATED = 회원 id, ITEM_ADDED = 상품 id, 그 외 = 0
+ */
+@Getter
+@ToString
+public class OrderAuditRecord {
+
+    public enum Type {
+        CREATED, ITEM_ADDED, CANCELED, DELIVERY_COMPLETED;
+
+        // 0 은 빈 공간(파일의 끝)이므로 1부터 쓴다.
+        byte code() {
+            return (byte) (ordinal() + 1);
+        }
+
+        static Type of(byte code) {
+            return values()[code - 1];
+        }
+    }
+
+    static final int PAYLOAD_SIZE = 1 + 8 + 8 + 8 + 4 + 4;
+    static final int SIZE = PAYLOAD_SIZE + 4;
+
+    private final Type type;
+    private final long timestamp;   // epoch millis
+    private final long orderId;
+    private final long refId;
+    private final int price;
+    private final int count;
+
+    public OrderAuditRecord(Type type, long timestamp, long orderId, long refId, int price, int count) {
+        this.type = type;
+        this.timestamp = timestamp;
+        this.orderId = orderId;
+        this.refId = refId;
+        this.price = price;
+        this.count = count;
+    }
+
+    public static OrderAuditRecord created(Order order, long timestamp) {
+        return new OrderAuditRecord(Type.CREATED, timestamp, order.getId(), order.getMember().getId(), 0, 0);
+    }
+
+    public static OrderAuditRecord itemAdded(Order order, OrderItem orderItem, long timestamp) {
+        return new OrderAuditRecord(Type.ITEM_ADDED, timestamp, order.getId(), orderItem.getItem().getId(),
+                orderItem.getOrderPrice(), orderItem.getCount());
+    }
+
+    public static OrderAuditRecord canceled(Long orderId, long timestamp) {
+        return new OrderAuditRecord(Type.CANCELED, timestamp, orderId, 0, 0, 0);
+    }
+
+    public static OrderAuditRecord deliveryCompleted(Long orderId, long timestamp) {
+        return new OrderAuditRecord(Type.DELIVERY_COMPLETED, timestamp, orderId, 0, 0, 0);
+    }
+
+    void writeTo(ByteBuffer buffer) {
+        buffer.put(type.code())
+                .putLong(timestamp)
+                .putLong(orderId)
+                .putLong(refId)
+                .putInt(price)
+                .putInt(count);
+    }
+
+    static OrderAuditRecord readFrom(ByteBuffer buffer) {
+        Type type = Type.of(buffer.get());
+        return new OrderAuditRecord(type, buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                buffer.getInt(), buffer.getInt());
+    }
+}
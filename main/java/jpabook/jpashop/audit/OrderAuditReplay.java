@@ -0,0 +1,130 @@
+package jpabook.jpashop.audit;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 주문 이벤트 로그를 처음부터 읽어서 주문별 상태를 다시 만든다.
+ *
+ * 실행 : java -cp <classpath> jpabook.jpashop.audit.OrderAuditReplay <로그 디렉토리> [주문 id...]
+ *        주문 id 를 주지 않으면 전체 주문의 상태별 건수만 출력한다.
+ *
+ * 레코드는 커밋 후에 스레드마다 따로 추가하므로 파일 순서가 커밋 순서와 다를 수 있다.
+ * (ex. 주문 커밋 직후 다른 요청이 취소하면 CANCELED 가 CREATED 보다 먼저 기록될 수 있다.)
+ * 주문 상태는 ORDER -> CANCEL, 배송 상태는 READY -> COMP 로 한 방향으로만 바뀌므로, 순서와 상관 없이 나중 상태가 이기도록 합친다.
+ */
+public class OrderAuditReplay {
+
+    public static Map<Long, OrderState> replay(Path directory) throws IOException {
+        Map<Long, OrderState> orders = new LinkedHashMap<>();
+        OrderAuditLog.read(directory, record -> {
+            OrderState order = orders.computeIfAbsent(record.getOrderId(), OrderState::new);
+            order.apply(record);
+        });
+        return orders;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: OrderAuditReplay <log directory> [orderId...]");
+            return;
+        }
+        Path directory = Paths.get(args[0]);
+        Map<Long, OrderState> orders = replay(directory);
+
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++) {
+                System.out.println(orders.get(Long.valueOf(args[i])));
+            }
+            return;
+        }
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (OrderState order : orders.values()) {
+            counts.merge(order.getStatus() + "/" + order.getDeliveryStatus(), 1, Integer::sum);
+        }
+        System.out.printf("%s: %d orders %s%n", directory.toAbsolutePath(), orders.size(), counts);
+    }
+
+    /**
+     * 로그로 다시 만든 주문 상태
+     */
+    @Getter
+    public static class OrderState {
+
+        private final Long orderId;
+        private Long memberId;
+        private OrderStatus status;
+        private DeliveryStatus deliveryStatus;
+        private LocalDateTime orderDate;
+        private LocalDateTime lastModifiedDate;
+        private final List<Item> items = new ArrayList<>();
+
+        OrderState(Long orderId) {
+            this.orderId = orderId;
+        }
+
+        void apply(OrderAuditRecord record) {
+            LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochMilli(record.getTimestamp()), ZoneId.systemDefault());
+            switch (record.getType()) {
+                case CREATED:   // 먼저 기록된 취소/배송완료를 덮어쓰지 않는다.
+                    memberId = record.getRefId();
+                    if (status == null) {
+                        status = OrderStatus.ORDER;
+                    }
+                    if (deliveryStatus == null) {
+                        deliveryStatus = DeliveryStatus.READY;
+                    }
+                    orderDate = at;
+                    break;
+                case ITEM_ADDED:
+                    items.add(new Item(record.getRefId(), record.getPrice(), record.getCount()));
+                    break;
+                case CANCELED:
+                    status = OrderStatus.CANCEL;
+                    break;
+                case DELIVERY_COMPLETED:
+                    deliveryStatus = DeliveryStatus.COMP;
+                    break;
+            }
+            if (lastModifiedDate == null || at.isAfter(lastModifiedDate)) {
+                lastModifiedDate = at;
+            }
+        }
+
+        public int getTotalPrice() {
+            return items.stream().mapToInt(item -> item.getOrderPrice() * item.getCount()).sum();
+        }
+
+        @Override
+        public String toString() {
+            return "Order#" + orderId + " member=" + memberId + " " + status + "/" + deliveryStatus
+                    + " items=" + items.size() + " total=" + getTotalPrice() + " at " + orderDate + " ~ " + lastModifiedDate;
+        }
+    }
+
+    @Getter
+    public static class Item {
+
+        private final Long itemId;
+        private final int orderPrice;
+        private final int count;
+
+        Item(Long itemId, int orderPrice, int count) {
+            this.itemId = itemId;
+            this.orderPrice = orderPrice;
+            this.count = count;
+        }
+    }
+}
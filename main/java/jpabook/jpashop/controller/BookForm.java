@@ -12,4 +12,5 @@ public class BookForm {
     private int stockQuantity;
     private String author;
     private String isbn;
+    private int version;    // 수정 화면을 연 시점의 상품 version (동시 수정 감지용)
 }
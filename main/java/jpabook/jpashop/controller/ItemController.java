@@ -1,22 +1,39 @@
 package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.item.Book;
-import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.item.query.ItemQueryDto;
+import jpabook.jpashop.repository.item.query.ItemQueryRepository;
+import jpabook.jpashop.service.DataVersions;
 import jpabook.jpashop.service.ItemService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import static jpabook.jpashop.service.DataVersions.Domain.ITEM;
 
 @Controller
 @RequiredArgsConstructor
 public class ItemController {
 
+    private static final int MAX_SEARCH_LIMIT = 100;    // 검색 결과 최대 건수 (limit 은 1 ~ MAX_SEARCH_LIMIT 로 맞춘다.)
+
     private final ItemService itemService;
+    private final ItemQueryRepository itemQueryRepository;
+    private final DataVersions dataVersions;
+    private final RenderedViewCache renderedViewCache;
 
     @GetMapping("/items/new")
     public String createForm(Model model){
@@ -37,11 +54,26 @@ public class ItemController {
         return "redirect:/";
     }
 
+    /**
+     * 목록 화면은 id, name, price, stockQuantity 만 사용하므로 엔티티 대신 DTO로 필요한 컬럼만 페이징 조회한다.
+     * 상품 버전(주문/취소로 인한 재고 변경 포함)이 그대로면 조회, 렌더링 없이 캐시된 HTML 또는 304를 반환한다.
+     */
     @GetMapping("/items")
-    public String list(Model model){
-        List<Item> items = itemService.findItems();
-        model.addAttribute("items", items);
-        return "items/itemList";
+    public ResponseEntity<String> list(@RequestParam(value = "q", required = false) String query,
+                                       @RequestParam(value = "offset", defaultValue = "0") int offset,
+                                       @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                       HttpServletRequest request, HttpServletResponse response) throws Exception {
+        return renderedViewCache.render("items/itemList", dataVersions.tag(ITEM), request, response, () -> {
+            List<ItemQueryDto> items = StringUtils.hasText(query)
+                    ? itemService.searchItems(query, Math.max(1, Math.min(limit, MAX_SEARCH_LIMIT)))
+                    : itemQueryRepository.findItemDtos(offset, limit);
+            Map<String, Object> model = new HashMap<>();
+            model.put("items", items);
+            model.put("q", query);
+            model.put("offset", offset);
+            model.put("limit", limit);
+            return model;
+        });
     }
 
     @GetMapping("items/{itemId}/edit")
@@ -53,6 +85,7 @@ public class ItemController {
         form.setName(item.getName());
         form.setPrice(item.getPrice());
         form.setStockQuantity(item.getStockQuantity());
+        form.setVersion(item.getVersion());
 
         // 해당 데이터는 업데이트 불가라고 가정
 //        form.setAuthor(item.getAuthor());
@@ -75,7 +108,7 @@ public class ItemController {
 //        book.setIsbn(form.getIsbn());
 //        itemService.saveItem(book);
 
-        itemService.updateItem(itemId, form.getName(), form.getPrice(), form.getStockQuantity());
+        itemService.updateItem(itemId, form.getVersion(), form.getName(), form.getPrice(), form.getStockQuantity());
 
         return "redirect:/items";
     }
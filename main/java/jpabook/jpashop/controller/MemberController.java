@@ -2,23 +2,39 @@ package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.member.query.MemberListQueryDto;
+import jpabook.jpashop.repository.member.query.MemberQueryRepository;
+import jpabook.jpashop.service.DataVersions;
 import jpabook.jpashop.service.MemberService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import static jpabook.jpashop.service.DataVersions.Domain.MEMBER;
 
 @Controller
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_PAGE_SIZE = 1000;   // 한 페이지 최대 건수 (limit 은 1 ~ MAX_PAGE_SIZE 로 맞춘다.)
+
     private final MemberService memberService;
+    private final MemberQueryRepository memberQueryRepository;
+    private final DataVersions dataVersions;
+    private final RenderedViewCache renderedViewCache;
 
     @GetMapping("/members/new")
     public String createForm(Model model){
@@ -43,10 +59,24 @@ public class MemberController {
         return "redirect:/";
     }
 
+    /**
+     * 회원 목록 - 화면에 필요한 컬럼만 id 기준 keyset 페이징으로 조회
+     * 회원 버전이 그대로면 조회, 렌더링 없이 캐시된 HTML 또는 304를 반환한다.
+     */
     @GetMapping("/members")
-    public String list(Model model){
-        List<Member> members = memberService.findMembers();
-        model.addAttribute("members", members);
-        return "members/memberList";
+    public ResponseEntity<String> list(@RequestParam(value = "lastId", required = false) Long lastId,
+                                       @RequestParam(value = "limit", defaultValue = "100") int limit,
+                                       HttpServletRequest request, HttpServletResponse response) throws Exception {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        return renderedViewCache.render("members/memberList", dataVersions.tag(MEMBER), request, response, () -> {
+            List<MemberListQueryDto> members = memberQueryRepository.findMemberList(lastId, pageSize);
+            Map<String, Object> model = new HashMap<>();
+            model.put("members", members);
+            model.put("limit", pageSize);
+            if (members.size() == pageSize) {
+                model.put("nextLastId", members.get(members.size() - 1).getId());
+            }
+            return model;
+        });
     }
 }
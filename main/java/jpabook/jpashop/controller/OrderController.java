@@ -1,35 +1,54 @@
 package jpabook.jpashop.controller;
 
-import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.OrderSerach;
-import jpabook.jpashop.service.ItemService;
-import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.DataVersions;
 import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.OrderSubmitService;
+import jpabook.jpashop.service.query.OrderQueryService;
+import jpabook.jpashop.service.reference.ReferenceDataService;
+import jpabook.jpashop.service.reference.ReferenceDto;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static jpabook.jpashop.service.DataVersions.Domain.*;
 
 @Controller
 @RequiredArgsConstructor
 public class OrderController {
 
     private final OrderService orderService;
-    private final MemberService memberService;
-    private final ItemService itemService;
+    private final OrderSubmitService orderSubmitService;
+    private final OrderQueryService orderQueryService;
+    private final ReferenceDataService referenceDataService;
+    private final DataVersions dataVersions;
+    private final RenderedViewCache renderedViewCache;
+
+    private static final int SELECT_OPTION_LIMIT = 100;
 
+    /**
+     * 회원, 상품 엔티티를 전부 조회하지 않고 메모리의 (id, 이름) 참조 데이터에서 앞의 SELECT_OPTION_LIMIT 개만 보여준다.
+     * 목록에 없는 회원, 상품은 화면의 검색창(/api/v1/reference/**)으로 찾는다.
+     */
     @GetMapping("/order")
     public String createForm(Model model) {
 
-        List<Member> members = memberService.findMembers();
-        List<Item> items = itemService.findItems();
+        List<ReferenceDto> members = referenceDataService.members(SELECT_OPTION_LIMIT);
+        List<ReferenceDto> items = referenceDataService.items(SELECT_OPTION_LIMIT);
 
         model.addAttribute("members", members);
         model.addAttribute("items", items);
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());   // 폼마다 새 키 - 다시 제출해도 같은 주문
 
         return "order/orderForm";
     }
@@ -37,21 +56,29 @@ public class OrderController {
     @PostMapping("/order")
     public String order(@RequestParam("memberId") Long memberId,
                         @RequestParam("itemId") Long itemId,
-                        @RequestParam("count") int count){
+                        @RequestParam("count") int count,
+                        @RequestParam(value = "idempotencyKey", required = false) String idempotencyKey){
 
         // 조회가 아닌 핵심 비즈니스로직은 Service 단에서 처리해줘야 영속상태에서 일을 처리할 수 있어서 좋다.
         // 변경 감지(set ~~ )도 쉽게 가능
-        orderService.order(memberId, itemId, count);
+        orderSubmitService.submit(idempotencyKey, memberId, itemId, count);
         return "redirect:/orders";
     }
 
+    /**
+     * 주문 목록은 회원 이름, 상품 이름도 보여주므로 주문/회원/상품 버전이 모두 그대로일 때만 캐시를 사용한다.
+     */
     @GetMapping("/orders")
-    public String orderList(@ModelAttribute("orderSearch") OrderSerach orderSerach,
-                            Model model){
-        List<Order> orders = orderService.findOrders(orderSerach);
-        model.addAttribute("orders", orders);
-
-        return "order/orderList";
+    public ResponseEntity<String> orderList(@ModelAttribute("orderSearch") OrderSerach orderSerach,
+                                            HttpServletRequest request, HttpServletResponse response) throws Exception {
+        String version = dataVersions.tag(ORDER, MEMBER, ITEM);
+        return renderedViewCache.render("order/orderList", version, request, response, () -> {
+            List<Order> orders = orderQueryService.findOrdersWithItems(orderSerach); // 화면에서 회원 이름, 상품 이름을 쓴다.
+            Map<String, Object> model = new HashMap<>();
+            model.put("orderSearch", orderSerach);
+            model.put("orders", orders);
+            return model;
+        });
     }
 
     @PostMapping("/orders/{orderId}/cancel")
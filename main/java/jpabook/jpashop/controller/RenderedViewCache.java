@@ -0,0 +1,89 @@
+package jpabook.jpashop.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.View;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.thymeleaf.spring5.view.ThymeleafViewResolver;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 목록 화면의 렌더링 결과(HTML) 캐시
+ *
+ * 화면마다 데이터 버전(DataVersions.tag)을 받아서
+ * 1. 브라우저가 가진 ETag 와 같으면 304 Not Modified (조회, 렌더링 모두 생략)
+ * 2. 캐시된 HTML 의 버전과 같으면 그대로 반환 (조회, 렌더링 모두 생략)
+ * 3. 아니면 model 을 조회해서 Thymeleaf 로 렌더링하고 캐시에 넣는다.
+ *
+ * 캐시 키는 화면 이름 + 쿼리스트링이다. (페이지, 검색 조건마다 따로 캐시)
+ */
+@Component
+@RequiredArgsConstructor
+public class RenderedViewCache {
+
+    private static final int MAX_ENTRIES = 256;
+    private static final MediaType TEXT_HTML_UTF8 = new MediaType("text", "html", StandardCharsets.UTF_8);
+
+    private final ThymeleafViewResolver thymeleafViewResolver;
+
+    private final Map<String, CachedView> cache = new LinkedHashMap<String, CachedView>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedView> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    public ResponseEntity<String> render(String viewName, String version,
+                                         HttpServletRequest request, HttpServletResponse response,
+                                         Supplier<Map<String, Object>> model) throws Exception {
+        String eTag = "W/\"" + version + "\"";    // 약한 ETag - 톰캣은 강한 ETag 가 붙은 응답을 gzip 압축하지 않는다.
+        if (new ServletWebRequest(request, response).checkNotModified(eTag)) {
+            return null;    // 304 응답은 checkNotModified 가 이미 설정했다.
+        }
+
+        String key = viewName + "?" + request.getQueryString();
+        CachedView cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached == null || !cached.version.equals(version)) {
+            cached = new CachedView(version, renderToString(viewName, model.get(), request, response));
+            synchronized (cache) {
+                cache.put(key, cached);
+            }
+        }
+
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .contentType(TEXT_HTML_UTF8)
+                .body(cached.html);
+    }
+
+    private String renderToString(String viewName, Map<String, Object> model,
+                                  HttpServletRequest request, HttpServletResponse response) throws Exception {
+        View view = thymeleafViewResolver.resolveViewName(viewName, request.getLocale());
+        ContentCachingResponseWrapper buffer = new ContentCachingResponseWrapper(response);
+        view.render(model, request, buffer);
+        buffer.getWriter().flush();
+        return new String(buffer.getContentAsByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static class CachedView {
+        private final String version;
+        private final String html;
+
+        private CachedView(String version, String html) {
+            this.version = version;
+            this.html = html;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package jpabook.jpashop.controller;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * css, js 정적 리소스
+ *
+ * 1. 파일 이름에 내용 해시를 붙인다. (VersionResourceResolver)
+ *    템플릿의 th:href="@{/css/bootstrap.min.css}" 가 ResourceUrlEncodingFilter 에 의해
+ *    /css/bootstrap.min-{md5}.css 로 바뀐다. 내용이 바뀌면 URL 이 바뀌므로 1년 동안 캐시해도 된다.
+ * 2. 미리 압축한 .br / .gz 파일이 있으면 Accept-Encoding 에 맞춰 Content-Encoding 과 함께 내려준다. (EncodedResourceResolver)
+ *    압축 파일은 패키징 전에 scripts/precompress-static.sh 로 만든다. (커밋하지 않는다.) 없으면 server.compression 이 압축한다.
+ *
+ * 그 외 정적 리소스(index.html 등)는 스프링 부트 기본 설정(/**)을 그대로 사용한다.
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    private static final String[] VERSIONED_DIRECTORIES = {"css", "js"};
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String directory : VERSIONED_DIRECTORIES) {
+            registry.addResourceHandler("/" + directory + "/**")
+                    .addResourceLocations("classpath:/static/" + directory + "/")
+                    .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic())
+                    .resourceChain(true)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
+    }
+
+    /**
+     * 템플릿에서 만든 리소스 URL(@{...})에 내용 해시를 붙인다.
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+}
@@ -5,8 +5,13 @@ import lombok.Getter;
 import lombok.Setter;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_delivery_status", columnList = "status"),          // READY 배송 조회
+        @Index(name = "idx_delivery_claim_token", columnList = "claim_token") // 작업자가 가져간 배송 조회
+})
 @Getter @Setter
 public class Delivery {
 
@@ -23,4 +28,10 @@ public class Delivery {
 
     @Enumerated(EnumType.STRING)
     private DeliveryStatus status;  // READY, COMP
+
+    // 배송 처리 작업자가 가져간 표시 (DeliveryService.claim) - 처리가 끝나거나 시간이 지나면 비운다.
+    @JsonIgnore
+    private String claimToken;
+    @JsonIgnore
+    private LocalDateTime claimedAt;
 }
@@ -0,0 +1,27 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * 보관된 배송 (delivery_archive) - 처리 작업자 표시(claim_token)는 옮기지 않는다.
+ */
+@Entity
+@Table(name = "delivery_archive")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class DeliveryArchive {
+
+    @Id
+    @Column(name = "delivery_id")
+    private Long id;
+
+    @Embedded
+    private Address address;
+
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus status;
+}
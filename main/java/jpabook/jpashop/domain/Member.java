@@ -10,6 +10,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_member_name", columnNames = "name")) // 동시에 같은 이름으로 가입하는 경우 최종 방어선
 @Getter @Setter
 public class Member {
 
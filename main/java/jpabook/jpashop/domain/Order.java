@@ -1,5 +1,6 @@
 package jpabook.jpashop.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -13,7 +14,10 @@ import java.util.List;
 import static javax.persistence.FetchType.*;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date", columnList = "order_date, order_id"),        // 기간(월) 검색, 최신순 정렬
+        @Index(name = "uk_orders_idempotency_key", columnList = "idempotency_key", unique = true) // 중복 주문 방지
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -49,6 +53,27 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status;    // 주문상태 [ORDER, CANCEL]
 
+    @JsonIgnore
+    private String idempotencyKey;  // 주문 요청 키 - 같은 키로 두 번 주문되지 않는다. (OrderSubmitService)
+
+    @Version    // 낙관적 락 - 주문 취소가 동시에 두 번 일어나 재고가 두 번 늘어나는 것을 막는다.
+    @Setter(AccessLevel.NONE)
+    private int version;
+
+    @Setter(AccessLevel.NONE)
+    private LocalDateTime lastModifiedDate;    // 마지막 변경 시각
+
+    @JsonIgnore
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private boolean archived;   // orders_archive 에서 읽은 주문 (읽기 전용)
+
+    @PrePersist
+    @PreUpdate
+    protected void touch() {
+        this.lastModifiedDate = LocalDateTime.now();
+    }
+
     // 연관관계 메서드
     public void setMember(Member member){
         this.member = member;
@@ -76,12 +101,41 @@ public class Order {
         }
         order.setStatus(OrderStatus.ORDER);
         order.setOrderDate(LocalDateTime.now());
+        if (delivery.getStatus() == null) {
+            delivery.setStatus(DeliveryStatus.READY);   // 배송 처리(DeliveryService)가 READY 인 배송을 가져간다.
+        }
+        return order;
+    }
+
+    /**
+     * 보관된 주문(OrderArchive)을 읽기 전용으로 다시 만든다.
+     * setMember() 를 쓰지 않으므로 member.getOrders() 를 로딩하지 않는다.
+     */
+    static Order restore(Long id, Member member, Delivery delivery, List<OrderItem> orderItems,
+                         LocalDateTime orderDate, OrderStatus status, String idempotencyKey, int version,
+                         LocalDateTime lastModifiedDate) {
+        Order order = new Order();
+        order.id = id;
+        order.member = member;
+        order.setDelivery(delivery);
+        for (OrderItem orderItem : orderItems) {
+            order.addOrderItem(orderItem);
+        }
+        order.orderDate = orderDate;
+        order.status = status;
+        order.idempotencyKey = idempotencyKey;
+        order.version = version;
+        order.lastModifiedDate = lastModifiedDate;
+        order.archived = true;
         return order;
     }
 
     // 비즈니스 로직
     /** 주문 취소 */
     public void cancel(){
+        if (archived) {
+            throw new IllegalStateException("보관된 주문은 변경할 수 없습니다.");
+        }
         if(delivery.getStatus() == DeliveryStatus.COMP){
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
@@ -0,0 +1,75 @@
+package jpabook.jpashop.domain;
+
+import jpabook.jpashop.domain.item.Item;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 보관된 주문 (orders_archive)
+ *
+ * 오래된 취소/배송완료 주문은 OrderArchiveRepository 가 orders 에서 이 테이블로 옮긴다. 옮긴 뒤에는 변경하지 않는다.
+ * 연관관계 없이 id 만 가지고, 조회할 때 toOrder 로 Order 를 다시 만든다.
+ */
+@Entity
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "uk_orders_archive_idempotency_key", columnList = "idempotency_key", unique = true) // 보관 뒤에도 중복 주문 방지
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderArchive {
+
+    @Id
+    @Column(name = "order_id")
+    private Long id;
+
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(name = "delivery_id")
+    private Long deliveryId;
+
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private String idempotencyKey;  // 주문 요청 키 - 보관한 뒤에 같은 키로 다시 요청해도 새로 주문하지 않는다.
+
+    private int version;
+
+    private LocalDateTime lastModifiedDate;
+
+    private LocalDateTime archivedDate;     // 보관한 시각
+
+    /**
+     * 보관된 주문을 읽기 전용 Order 로 만든다. (Order.isArchived() == true, 영속 상태 아님)
+     *
+     * @param member 회원 (보관하지 않으므로 em.getReference 로 넘긴다.)
+     * @param item   상품 id -> 상품 (보관하지 않으므로 em.getReference 로 넘긴다.)
+     */
+    public Order toOrder(Member member, DeliveryArchive deliveryArchive, List<OrderItemArchive> itemArchives,
+                         Function<Long, Item> item) {
+        Delivery delivery = new Delivery();
+        delivery.setId(deliveryArchive.getId());
+        delivery.setAddress(deliveryArchive.getAddress());
+        delivery.setStatus(deliveryArchive.getStatus());
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (OrderItemArchive itemArchive : itemArchives) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setId(itemArchive.getId());
+            orderItem.setItem(item.apply(itemArchive.getItemId()));
+            orderItem.setOrderPrice(itemArchive.getOrderPrice());
+            orderItem.setCount(itemArchive.getCount());
+            orderItems.add(orderItem);
+        }
+        return Order.restore(id, member, delivery, orderItems, orderDate, status, idempotencyKey, version, lastModifiedDate);
+    }
+}
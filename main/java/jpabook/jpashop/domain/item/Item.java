@@ -2,16 +2,23 @@ package jpabook.jpashop.domain.item;
 
 import jpabook.jpashop.domain.Category;
 import jpabook.jpashop.exception.NotEnoughStockException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_item_dtype", columnList = "dtype"), // 타입별 조회(where dtype = ?)가 테이블 전체를 스캔하지 않도록
+        @Index(name = "idx_item_isbn", columnList = "isbn")    // 대량 등록 시 isbn 으로 기존 Book 을 찾는다.
+})
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype")
+@DynamicUpdate  // update 시 변경된 컬럼만 set 절에 포함한다. (가격만 바꾸면 stock_quantity 는 건드리지 않는다)
 @Getter @Setter
 public abstract class Item {
 
@@ -23,6 +30,15 @@ public abstract class Item {
     private int price;
     private int stockQuantity;
 
+    /**
+     * 낙관적 락 - update 시 where version = ? 조건이 붙고 값이 1 증가한다.
+     * 다른 트랜잭션이 먼저 수정했다면 update 결과가 0건이 되어 OptimisticLockException 이 발생한다.
+     * (primitive 로 두어야 merge 시 version 이 null 인 준영속 엔티티를 새 엔티티로 오해하지 않는다)
+     */
+    @Version
+    @Setter(AccessLevel.NONE)
+    private int version;
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
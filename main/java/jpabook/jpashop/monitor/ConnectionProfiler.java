@@ -0,0 +1,93 @@
+package jpabook.jpashop.monitor;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 트랜잭션 메서드별 커넥션 사용 통계
+ *
+ * - wait : 풀에서 커넥션을 얻기까지 기다린 시간
+ * - hold : 커넥션을 얻은 뒤 반납할 때까지의 시간
+ * - sql  : hold 중 Statement 실행(execute*)에 쓴 시간
+ * - idle : hold - sql. 트랜잭션 안에서 DB 가 아닌 일(엔티티 변환, 외부 호출 등)을 하며 커넥션을 잡고 있던 시간
+ *
+ * idle 이 큰 메서드는 트랜잭션 범위를 줄여야 하고, wait 가 커지면 풀 크기가 부족하다는 뜻이다.
+ * 메서드 이름은 트랜잭션 이름(ex. jpabook.jpashop.service.OrderService.order)이다. (ProfilingDataSource 참고)
+ */
+public class ConnectionProfiler {
+
+    private final Map<String, MethodStats> stats = new ConcurrentHashMap<>();
+    private final DecayingAverage recentWait = new DecayingAverage(0.2, 1, TimeUnit.SECONDS);
+
+    public void record(String method, long waitNanos, long holdNanos, long sqlNanos, int statements) {
+        recentWait.record(waitNanos);
+        MethodStats methodStats = stats.computeIfAbsent(method, MethodStats::new);
+        methodStats.wait.record(waitNanos);
+        methodStats.hold.record(holdNanos);
+        methodStats.sql.record(sqlNanos);
+        methodStats.idle.record(holdNanos - sqlNanos);
+        methodStats.statements.add(statements);
+    }
+
+    /**
+     * hold 시간 합계가 큰 순서
+     */
+    public List<MethodSnapshot> snapshot() {
+        List<MethodSnapshot> result = new ArrayList<>();
+        for (MethodStats methodStats : stats.values()) {
+            result.add(new MethodSnapshot(methodStats));
+        }
+        result.sort(Comparator.comparingDouble((MethodSnapshot s) -> s.getHold().getMeanMillis() * s.getHold().getCount()).reversed());
+        return result;
+    }
+
+    /**
+     * 최근 커넥션 대기 시간 (메서드 구분 없이, EWMA) - 풀이 부족해지면 커진다. (AdmissionControl 의 부하 차단 기준)
+     */
+    public double getRecentWaitMillis() {
+        return recentWait.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    private static class MethodStats {
+        private final String method;
+        private final LatencyHistogram wait = new LatencyHistogram();
+        private final LatencyHistogram hold = new LatencyHistogram();
+        private final LatencyHistogram sql = new LatencyHistogram();
+        private final LatencyHistogram idle = new LatencyHistogram();
+        private final LongAdder statements = new LongAdder();
+
+        private MethodStats(String method) {
+            this.method = method;
+        }
+    }
+
+    @Getter
+    public static class MethodSnapshot {
+        private final String method;
+        private final LatencyHistogram.Snapshot wait;
+        private final LatencyHistogram.Snapshot hold;
+        private final LatencyHistogram.Snapshot sql;
+        private final LatencyHistogram.Snapshot idle;
+        private final double statementsPerConnection;
+
+        private MethodSnapshot(MethodStats stats) {
+            this.method = stats.method;
+            this.wait = stats.wait.snapshot();
+            this.hold = stats.hold.snapshot();
+            this.sql = stats.sql.snapshot();
+            this.idle = stats.idle.snapshot();
+            this.statementsPerConnection = hold.getCount() == 0 ? 0 : stats.statements.sum() / (double) hold.getCount();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package jpabook.jpashop.monitor;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 스프링 부트가 만든 DataSource(HikariDataSource) 를 ProfilingDataSource 로 감싼다.
+ * EntityManagerFactory, JdbcTemplate 등은 감싼 DataSource 를 주입받는다.
+ *
+ * BeanPostProcessor 는 다른 빈보다 먼저 만들어져야 하므로 static 으로 등록한다.
+ */
+@Configuration
+public class ConnectionProfilerConfig {
+
+    @Bean
+    public static ConnectionProfiler connectionProfiler() {
+        return new ConnectionProfiler();
+    }
+
+    @Bean
+    public static BeanPostProcessor profilingDataSourcePostProcessor(ConnectionProfiler connectionProfiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof ProfilingDataSource)) {
+                    return new ProfilingDataSource((DataSource) bean, connectionProfiler);
+                }
+                return bean;
+            }
+        };
+    }
+}
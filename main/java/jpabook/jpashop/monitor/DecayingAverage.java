@@ -0,0 +1,38 @@
+package jpabook.jpashop.monitor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 최근 값의 지수 이동 평균 (EWMA)
+ *
+ * 값이 들어올 때마다 alpha 만큼 반영하고, 값이 들어오지 않는 동안에는 시간 상수 tau 로 0 을 향해 줄어든다.
+ * 부하를 막아서 값이 더 이상 들어오지 않아도(ex. 커넥션 대기로 요청을 거절) 평균이 그대로 남아있지 않게 하기 위함이다.
+ */
+public class DecayingAverage {
+
+    private final double alpha;
+    private final double tauNanos;
+
+    private double value;
+    private long lastNanos = System.nanoTime();
+
+    public DecayingAverage(double alpha, long tau, TimeUnit unit) {
+        this.alpha = alpha;
+        this.tauNanos = unit.toNanos(tau);
+    }
+
+    public synchronized void record(double sample) {
+        long now = System.nanoTime();
+        double current = decayed(now);
+        value = current + alpha * (sample - current);
+        lastNanos = now;
+    }
+
+    public synchronized double get() {
+        return decayed(System.nanoTime());
+    }
+
+    private double decayed(long now) {
+        return value * Math.exp(-(now - lastNanos) / tauNanos);
+    }
+}
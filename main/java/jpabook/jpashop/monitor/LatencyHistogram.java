@@ -0,0 +1,100 @@
+package jpabook.jpashop.monitor;
+
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 지연 시간 히스토그램 (lock-free)
+ *
+ * 구간은 마이크로초 기준 2의 거듭제곱이다. [0, 1µs), [1, 2µs), [2, 4µs), ... [2^30µs, ∞)
+ * 구간이 로그 스케일이므로 백분위 값은 해당 구간의 상한으로 근사한다. (최대 2배 오차)
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets.incrementAndGet(bucketOf(nanos / 1_000));
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    static int bucketOf(long micros) {
+        if (micros <= 0) {
+            return 0;
+        }
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * 구간의 상한 (µs)
+     */
+    static long upperBoundMicros(int bucket) {
+        return bucket == 0 ? 1 : 1L << bucket;
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        return new Snapshot(counts, total, totalNanos.sum(), maxNanos.get());
+    }
+
+    @Getter
+    public static class Snapshot {
+
+        private final long count;
+        private final double meanMillis;
+        private final double maxMillis;
+        private final double p50Millis;
+        private final double p95Millis;
+        private final double p99Millis;
+        private final Map<String, Long> buckets = new LinkedHashMap<>();  // "≤ 1024µs" -> 건수 (0건인 구간은 생략)
+
+        private Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.count = count;
+            this.meanMillis = count == 0 ? 0 : totalNanos / (double) count / 1_000_000;
+            this.maxMillis = maxNanos / 1_000_000.0;
+            this.p50Millis = percentile(counts, count, 0.50);
+            this.p95Millis = percentile(counts, count, 0.95);
+            this.p99Millis = percentile(counts, count, 0.99);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    buckets.put((i == counts.length - 1 ? "> " + upperBoundMicros(i - 1) : "≤ " + upperBoundMicros(i)) + "µs", counts[i]);
+                }
+            }
+        }
+
+        private static double percentile(long[] counts, long count, double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * percentile);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return upperBoundMicros(i) / 1_000.0;
+                }
+            }
+            return upperBoundMicros(counts.length - 1) / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package jpabook.jpashop.monitor;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 커넥션 사용 시간을 ConnectionProfiler 에 기록하는 DataSource
+ *
+ * 커넥션과 Statement 를 JDK 프록시로 감싸서 시간을 잰다.
+ * - getConnection() 호출 시간 -> wait
+ * - getConnection() ~ close() -> hold
+ * - Statement.execute* 시간의 합 -> sql (ResultSet 을 읽는 시간은 포함하지 않는다.)
+ *
+ * 어느 메서드의 커넥션인지는 트랜잭션 이름으로 구분한다.
+ * JpaTransactionManager 는 트랜잭션 이름을 등록하기 전에 커넥션을 먼저 얻고, 이름을 지운 뒤에 커넥션을 반납하므로
+ * 이름은 첫 Statement 를 만들 때 읽는다. Statement 없이 반납된 커넥션은 NO_STATEMENT 로 기록한다.
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    static final String NON_TRANSACTIONAL = "(non-transactional)";
+    static final String NO_STATEMENT = "(no statement)";
+
+    private final ConnectionProfiler profiler;
+
+    public ProfilingDataSource(DataSource targetDataSource, ConnectionProfiler profiler) {
+        super(targetDataSource);
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        return profile(connection, System.nanoTime() - start);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        return profile(connection, System.nanoTime() - start);
+    }
+
+    private Connection profile(Connection connection, long waitNanos) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection, waitNanos));
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+        private final long waitNanos;
+        private final long acquiredAt = System.nanoTime();
+        private String method;
+        private long sqlNanos;
+        private int statements;
+        private boolean closed;
+
+        private ConnectionHandler(Connection target, long waitNanos) {
+            this.target = target;
+            this.waitNanos = waitNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            String name = m.getName();
+            if (name.equals("equals")) {
+                return proxy == args[0];
+            }
+            if (name.equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (name.equals("close")) {
+                if (!closed) {
+                    closed = true;
+                    profiler.record(method == null ? NO_STATEMENT : method,
+                            waitNanos, System.nanoTime() - acquiredAt, sqlNanos, statements);
+                }
+                return invokeTarget(target, m, args);
+            }
+            if (name.equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy)) {
+                return proxy;
+            }
+
+            Object result = invokeTarget(target, m, args);
+            if (result instanceof Statement
+                    && (name.equals("createStatement") || name.equals("prepareStatement") || name.equals("prepareCall"))) {
+                if (method == null) {
+                    method = currentMethod();
+                }
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{statementType(name)},
+                        new StatementHandler((Statement) result, this));
+            }
+            return result;
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+
+        private final Statement target;
+        private final ConnectionHandler connection;
+
+        private StatementHandler(Statement target, ConnectionHandler connection) {
+            this.target = target;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method m, Object[] args) throws Throwable {
+            if (m.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (m.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            if (!m.getName().startsWith("execute")) {
+                return invokeTarget(target, m, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invokeTarget(target, m, args);
+            } finally {
+                connection.sqlNanos += System.nanoTime() - start;
+                connection.statements++;
+            }
+        }
+    }
+
+    private static String currentMethod() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return NON_TRANSACTIONAL;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name == null ? NON_TRANSACTIONAL : name;
+    }
+
+    private static Class<?> statementType(String factoryMethod) {
+        switch (factoryMethod) {
+            case "prepareStatement":
+                return PreparedStatement.class;
+            case "prepareCall":
+                return CallableStatement.class;
+            default:
+                return Statement.class;
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method m, Object[] args) throws Throwable {
+        try {
+            return m.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
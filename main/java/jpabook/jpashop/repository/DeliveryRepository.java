@@ -0,0 +1,121 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 배송 처리용 쿼리 - 엔티티를 읽지 않고 id 와 벌크 update 로만 처리한다.
+ *
+ * 여러 작업자가 같은 배송을 처리하지 않도록 "가져가기(claim)" 를 조건부 update 로 한다.
+ * 후보를 읽고, 아직 아무도 가져가지 않은 행에만 내 토큰을 쓴다. 다른 작업자가 먼저 가져간 행은 update 되지 않는다.
+ * (SELECT ... FOR UPDATE SKIP LOCKED 와 같은 효과. H2 1.4 는 SKIP LOCKED 를 지원하지 않는다.)
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeliveryRepository {
+
+    private final EntityManager em;
+
+    /**
+     * 가져갈 후보 - READY 이고, 아무도 가져가지 않았거나 가져간 지 오래된(작업자 장애) 배송. 취소된 주문의 배송은 제외
+     */
+    public List<Long> findClaimCandidates(LocalDateTime staleBefore, int limit) {
+        return em.createQuery(
+                "select d.id from Delivery d" +
+                        " where d.status = :ready" +
+                        " and (d.claimToken is null or d.claimedAt < :staleBefore)" +
+                        " and d.id in (select o.delivery.id from Order o where o.status = :order)" +
+                        " order by d.id", Long.class)
+                .setParameter("ready", DeliveryStatus.READY)
+                .setParameter("staleBefore", staleBefore)
+                .setParameter("order", OrderStatus.ORDER)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 후보 중 아직 가져갈 수 있는 행에만 토큰을 쓴다. 반환값 = 실제로 가져간 건수
+     */
+    public int claim(Collection<Long> deliveryIds, String token, LocalDateTime now, LocalDateTime staleBefore) {
+        return em.createQuery(
+                "update Delivery d" +
+                        " set d.claimToken = :token, d.claimedAt = :now" +
+                        " where d.id in :deliveryIds" +
+                        " and d.status = :ready" +
+                        " and (d.claimToken is null or d.claimedAt < :staleBefore)")
+                .setParameter("token", token)
+                .setParameter("now", now)
+                .setParameter("deliveryIds", deliveryIds)
+                .setParameter("ready", DeliveryStatus.READY)
+                .setParameter("staleBefore", staleBefore)
+                .executeUpdate();
+    }
+
+    public List<Long> findClaimed(String token) {
+        return em.createQuery("select d.id from Delivery d where d.claimToken = :token order by d.id", Long.class)
+                .setParameter("token", token)
+                .getResultList();
+    }
+
+    /**
+     * 가져간 배송의 주문 version 을 올린다.
+     * 주문 취소(Order.cancel)는 배송 상태를 읽고 주문을 수정하므로, 배송 완료와 동시에 일어나면 취소 쪽이 낙관적 락 충돌로 다시 실행된다.
+     */
+    public int touchOrders(String token, LocalDateTime now) {
+        return em.createQuery(
+                "update Order o" +
+                        " set o.version = o.version + 1, o.lastModifiedDate = :now" +
+                        " where o.status = :order" +
+                        " and o.delivery.id in (select d.id from Delivery d where d.claimToken = :token)")
+                .setParameter("now", now)
+                .setParameter("order", OrderStatus.ORDER)
+                .setParameter("token", token)
+                .executeUpdate();
+    }
+
+    /**
+     * complete 로 COMP 가 될 배송의 주문 id (취소된 주문 제외)
+     */
+    public List<Long> findCompletableOrderIds(String token) {
+        return em.createQuery(
+                "select o.id from Order o join o.delivery d" +
+                        " where d.claimToken = :token and o.status = :order", Long.class)
+                .setParameter("token", token)
+                .setParameter("order", OrderStatus.ORDER)
+                .getResultList();
+    }
+
+    /**
+     * 가져간 배송을 COMP 로 바꾼다. 그 사이 취소된 주문의 배송은 바꾸지 않는다.
+     */
+    public int complete(String token) {
+        return em.createQuery(
+                "update Delivery d" +
+                        " set d.status = :comp, d.claimToken = null, d.claimedAt = null" +
+                        " where d.claimToken = :token" +
+                        " and d.id in (select o.delivery.id from Order o where o.status = :order)")
+                .setParameter("comp", DeliveryStatus.COMP)
+                .setParameter("token", token)
+                .setParameter("order", OrderStatus.ORDER)
+                .executeUpdate();
+    }
+
+    /**
+     * 처리하지 못한 배송을 돌려놓는다.
+     */
+    public int release(String token) {
+        return em.createQuery(
+                "update Delivery d" +
+                        " set d.claimToken = null, d.claimedAt = null" +
+                        " where d.claimToken = :token")
+                .setParameter("token", token)
+                .executeUpdate();
+    }
+}
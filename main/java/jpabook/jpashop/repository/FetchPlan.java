@@ -0,0 +1,130 @@
+package jpabook.jpashop.repository;
+
+import org.hibernate.Hibernate;
+
+import javax.persistence.EntityGraph;
+import javax.persistence.EntityManager;
+import javax.persistence.Subgraph;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 조회할 연관관계를 메서드마다 명시하는 fetch plan
+ *
+ * OSIV 를 끄면(open-in-view: false) 트랜잭션이 끝난 뒤에는 지연 로딩을 할 수 없다.
+ * 그래서 조회 메서드가 "어디까지 로딩해서 넘겨주는지"를 이 plan 으로 선언한다.
+ *
+ * 1. ToOne 연관관계 - join("member", "delivery")
+ *    엔티티 그래프(javax.persistence.loadgraph)로 fetch join 한다. row 수가 늘지 않으므로 페이징에도 안전하다.
+ * 2. 컬렉션 - batch(Order::getOrderItems, OrderItem::getItem)
+ *    조회 후 트랜잭션 안에서 초기화한다. default_batch_fetch_size 때문에 IN 쿼리로 한꺼번에 로딩된다. (V3.1 방식)
+ *    컬렉션 fetch join 은 페이징이 불가능하므로 사용하지 않는다.
+ *
+ * ex)
+ * FetchPlan<Order> plan = FetchPlan.of(Order.class)
+ *         .join("member", "delivery")
+ *         .batch(Order::getOrderItems, OrderItem::getItem);
+ *
+ * plan 은 불변이므로 상수로 두고 재사용한다.
+ */
+public final class FetchPlan<T> {
+
+    private static final String LOAD_GRAPH = "javax.persistence.loadgraph";
+
+    private final Class<T> rootType;
+    private final List<String> joins;
+    private final List<Function<T, ?>> batches;
+
+    private FetchPlan(Class<T> rootType, List<String> joins, List<Function<T, ?>> batches) {
+        this.rootType = rootType;
+        this.joins = joins;
+        this.batches = batches;
+    }
+
+    public static <T> FetchPlan<T> of(Class<T> rootType) {
+        return new FetchPlan<>(rootType, Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * ToOne 연관관계를 fetch join 한다. "delivery.order" 처럼 점(.)으로 이어서 ToOne 을 따라갈 수 있다.
+     */
+    public FetchPlan<T> join(String... attributePaths) {
+        List<String> newJoins = new ArrayList<>(joins);
+        Collections.addAll(newJoins, attributePaths);
+        return new FetchPlan<>(rootType, Collections.unmodifiableList(newJoins), batches);
+    }
+
+    /**
+     * 컬렉션을 초기화한다.
+     */
+    public <E> FetchPlan<T> batch(Function<T, ? extends Collection<E>> collection) {
+        return addBatch(root -> {
+            Collection<E> elements = collection.apply(root);
+            Hibernate.initialize(elements);
+            return elements;
+        });
+    }
+
+    /**
+     * 컬렉션을 초기화하고, 컬렉션 원소의 ToOne 연관관계(ex. OrderItem.item)도 초기화한다.
+     */
+    public <E> FetchPlan<T> batch(Function<T, ? extends Collection<E>> collection, Function<E, ?> eachToOne) {
+        return addBatch(root -> {
+            Collection<E> elements = collection.apply(root);
+            Hibernate.initialize(elements);
+            for (E element : elements) {
+                Hibernate.initialize(eachToOne.apply(element));
+            }
+            return elements;
+        });
+    }
+
+    private FetchPlan<T> addBatch(Function<T, ?> batch) {
+        List<Function<T, ?>> newBatches = new ArrayList<>(batches);
+        newBatches.add(batch);
+        return new FetchPlan<>(rootType, joins, Collections.unmodifiableList(newBatches));
+    }
+
+    /**
+     * 쿼리에 ToOne fetch join 을 적용한다.
+     */
+    public TypedQuery<T> applyTo(EntityManager em, TypedQuery<T> query) {
+        if (joins.isEmpty()) {
+            return query;
+        }
+        return query.setHint(LOAD_GRAPH, toEntityGraph(em));
+    }
+
+    /**
+     * 조회 결과의 컬렉션을 초기화한다. 반드시 트랜잭션(영속성 컨텍스트) 안에서 호출해야 한다.
+     */
+    public List<T> load(List<T> roots) {
+        for (Function<T, ?> batch : batches) {
+            for (T root : roots) {
+                batch.apply(root);
+            }
+        }
+        return roots;
+    }
+
+    private EntityGraph<T> toEntityGraph(EntityManager em) {
+        EntityGraph<T> graph = em.createEntityGraph(rootType);
+        for (String path : joins) {
+            String[] attributes = path.split("\\.");
+            if (attributes.length == 1) {
+                graph.addAttributeNodes(attributes[0]);
+                continue;
+            }
+            Subgraph<?> subgraph = graph.addSubgraph(attributes[0]);
+            for (int i = 1; i < attributes.length - 1; i++) {
+                subgraph = subgraph.addSubgraph(attributes[i]);
+            }
+            subgraph.addAttributeNodes(attributes[attributes.length - 1]);
+        }
+        return graph;
+    }
+}
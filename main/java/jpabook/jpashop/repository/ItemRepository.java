@@ -1,10 +1,12 @@
 package jpabook.jpashop.repository;
 
+import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,6 +20,7 @@ public class ItemRepository {
             em.persist(item);
         } else {
             em.merge(item); // 데이터를 변경할 때, 모든 값을 교체. 값이 들어가지 않는 필드에 대해서 null로 갈아 치움. 실무에서 쓰기 위험함. merge 대신 변경 감지 기능을 쓰자.
+            // Item 은 @DynamicUpdate 이므로 merge 후에도 실제로 값이 바뀐 컬럼만 update 되고, @Version 으로 동시 수정을 감지한다.
         }
     }
 
@@ -29,4 +32,36 @@ public class ItemRepository {
         return em.createQuery("select i from Item i", Item.class)
                 .getResultList();
     }
+
+    public List<Item> findAll(int offset, int limit){
+        return em.createQuery("select i from Item i order by i.id", Item.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public List<Item> findAllByIds(Collection<Long> itemIds){
+        return em.createQuery("select i from Item i where i.id in :itemIds", Item.class)
+                .setParameter("itemIds", itemIds)
+                .getResultList();
+    }
+
+    public List<Book> findBooksByIsbns(Collection<String> isbns){
+        return em.createQuery("select b from Book b where b.isbn in :isbns", Book.class)
+                .setParameter("isbns", isbns)
+                .getResultList();
+    }
+
+    /**
+     * 재고를 update 한 번으로 늘린다. (대량 주문 취소)
+     * 벌크 연산은 @Version 을 거치지 않으므로 version 을 직접 올려서, 이미 읽어간 엔티티의 수정이 충돌로 감지되게 한다.
+     */
+    public int addStock(Collection<Long> itemIds, int quantity){
+        return em.createQuery("update Item i" +
+                " set i.stockQuantity = i.stockQuantity + :quantity, i.version = i.version + 1" +
+                " where i.id in :itemIds")
+                .setParameter("quantity", quantity)
+                .setParameter("itemIds", itemIds)
+                .executeUpdate();
+    }
 }
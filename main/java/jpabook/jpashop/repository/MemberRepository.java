@@ -6,6 +6,7 @@ import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -30,6 +31,41 @@ public class MemberRepository {
                 .getResultList();
     }
 
+    /**
+     * 중복 검사는 엔티티가 필요 없으므로 id 하나만 조회한다.
+     */
+    public boolean existsByName(String name){
+        return !em.createQuery("select m.id from Member m where m.name = :name", Long.class)
+                .setParameter("name", name)
+                .setMaxResults(1)
+                .getResultList()
+                .isEmpty();
+    }
+
+    public List<String> findExistingNames(Collection<String> names){
+        return em.createQuery("select m.name from Member m where m.name in :names", String.class)
+                .setParameter("names", names)
+                .getResultList();
+    }
+
+    public List<String> findNames(int offset, int limit){
+        return em.createQuery("select m.name from Member m order by m.id", String.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * insert 를 즉시 실행한다. @Repository 이므로 제약조건 위반은 DataIntegrityViolationException 으로 변환된다.
+     */
+    public void flush(){
+        em.flush();
+    }
+
+    public void clear(){
+        em.clear();
+    }
+
     public List<Member> findByName(String name){
         return em.createQuery("select m from Member m where m.name = :name", Member.class)
                 .setParameter("name", name)
@@ -0,0 +1,122 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.DeliveryArchive;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderArchive;
+import jpabook.jpashop.domain.OrderItemArchive;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 오래된 주문을 보관 테이블(orders_archive, order_item_archive, delivery_archive)로 옮긴다.
+ *
+ * 엔티티를 읽지 않고 insert ... select 와 delete 로 행을 그대로 옮긴다. (네이티브 쿼리)
+ * 보관 테이블의 컬럼은 원래 테이블과 이름이 같다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderArchiveRepository {
+
+    private final EntityManager em;
+
+    /**
+     * 보관 대상 - cutoff 이전 주문 중 취소되었거나 배송 완료된 주문 (더 이상 바뀌지 않는 주문)
+     */
+    public List<OrderArchiveTarget> findTargets(LocalDateTime cutoff, int limit) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.OrderArchiveTarget(o.id, o.member.id, d.id)" +
+                        " from Order o" +
+                        " join o.delivery d" +
+                        " where o.orderDate < :cutoff" +
+                        " and (o.status = :cancel or d.status = :comp)" +
+                        " order by o.id", OrderArchiveTarget.class)
+                .setParameter("cutoff", cutoff)
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .setParameter("comp", DeliveryStatus.COMP)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 주문, 주문상품, 배송을 보관 테이블에 복사한다. 반환값 = 복사한 주문 수
+     */
+    public int copy(Collection<Long> orderIds, Collection<Long> deliveryIds, LocalDateTime now) {
+        int orders = em.createNativeQuery(
+                "insert into orders_archive" +
+                        " (order_id, member_id, delivery_id, order_date, status, idempotency_key, version," +
+                        " last_modified_date, archived_date)" +
+                        " select order_id, member_id, delivery_id, order_date, status, idempotency_key, version," +
+                        " last_modified_date, :now" +
+                        " from orders where order_id in (:orderIds)")
+                .setParameter("now", now)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+        em.createNativeQuery(
+                "insert into order_item_archive (order_item_id, order_id, item_id, order_price, count)" +
+                        " select order_item_id, order_id, item_id, order_price, count" +
+                        " from order_item where order_id in (:orderIds)")
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+        em.createNativeQuery(
+                "insert into delivery_archive (delivery_id, city, street, zipcode, status)" +
+                        " select delivery_id, city, street, zipcode, status" +
+                        " from delivery where delivery_id in (:deliveryIds)")
+                .setParameter("deliveryIds", deliveryIds)
+                .executeUpdate();
+        return orders;
+    }
+
+    /**
+     * 복사한 주문을 원래 테이블에서 지운다. (FK 순서: 주문상품 -> 주문 -> 배송) 반환값 = 지운 주문 수
+     */
+    public int delete(Collection<Long> orderIds, Collection<Long> deliveryIds) {
+        em.createNativeQuery("delete from order_item where order_id in (:orderIds)")
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+        int orders = em.createNativeQuery("delete from orders where order_id in (:orderIds)")
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+        em.createNativeQuery("delete from delivery where delivery_id in (:deliveryIds)")
+                .setParameter("deliveryIds", deliveryIds)
+                .executeUpdate();
+        return orders;
+    }
+
+    /**
+     * 보관된 주문 중 멱등성 키가 같은 주문의 id (OrderSubmitService)
+     */
+    public Long findIdByIdempotencyKey(String idempotencyKey) {
+        return em.createQuery("select a.id from OrderArchive a where a.idempotencyKey = :key", Long.class)
+                .setParameter("key", idempotencyKey)
+                .getResultList()
+                .stream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * 보관된 주문을 읽기 전용 Order 로 조회한다. 회원, 상품은 프록시로 연결한다. (트랜잭션 안에서만 초기화 가능)
+     */
+    public Order findOne(Long orderId) {
+        OrderArchive archive = em.find(OrderArchive.class, orderId);
+        if (archive == null) {
+            return null;
+        }
+        DeliveryArchive delivery = em.find(DeliveryArchive.class, archive.getDeliveryId());
+        List<OrderItemArchive> items = em.createQuery(
+                "select oi from OrderItemArchive oi where oi.orderId = :orderId order by oi.id", OrderItemArchive.class)
+                .setParameter("orderId", orderId)
+                .getResultList();
+        return archive.toOrder(em.getReference(Member.class, archive.getMemberId()), delivery, items,
+                itemId -> em.getReference(Item.class, itemId));
+    }
+}
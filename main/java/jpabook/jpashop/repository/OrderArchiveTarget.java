@@ -0,0 +1,20 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+
+/**
+ * 보관할 주문 - 주문, 배송 행을 옮기고 회원별 캐시를 지우기 위한 id
+ */
+@Getter
+public class OrderArchiveTarget {
+
+    private final Long orderId;
+    private final Long memberId;
+    private final Long deliveryId;
+
+    public OrderArchiveTarget(Long orderId, Long memberId, Long deliveryId) {
+        this.orderId = orderId;
+        this.memberId = memberId;
+        this.deliveryId = deliveryId;
+    }
+}
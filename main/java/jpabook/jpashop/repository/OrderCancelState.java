@@ -0,0 +1,24 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Getter;
+
+/**
+ * 대량 취소 전에 주문 상태, 배송 상태를 한 번에 확인하기 위한 조회 결과
+ */
+@Getter
+public class OrderCancelState {
+
+    private final Long orderId;
+    private final Long memberId;
+    private final OrderStatus status;
+    private final DeliveryStatus deliveryStatus;
+
+    public OrderCancelState(Long orderId, Long memberId, OrderStatus status, DeliveryStatus deliveryStatus) {
+        this.orderId = orderId;
+        this.memberId = memberId;
+        this.status = status;
+        this.deliveryStatus = deliveryStatus;
+    }
+}
@@ -1,8 +1,10 @@
 package jpabook.jpashop.repository;
 
 import jpabook.jpashop.api.OrderSimpleApiController;
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 import org.springframework.util.StringUtils;
@@ -10,21 +12,42 @@ import org.springframework.util.StringUtils;
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
 
     private final EntityManager em;
+    private final OrderArchiveRepository orderArchiveRepository;
 
     public void save(Order order){
         em.persist(order);
     }
 
+    /**
+     * 주문 테이블에 없으면 보관 테이블에서 찾는다. 보관된 주문은 읽기 전용이다. (Order.isArchived())
+     */
     public Order findOne(Long id){
-        return em.find(Order.class, id);
+        Order order = em.find(Order.class, id);
+        if (order != null) {
+            return order;
+        }
+        return orderArchiveRepository.findOne(id);
+    }
+
+    public Long findIdByIdempotencyKey(String idempotencyKey) {
+        return em.createQuery("select o.id from Order o where o.idempotencyKey = :key", Long.class)
+                .setParameter("key", idempotencyKey)
+                .getResultList()
+                .stream()
+                .findFirst()
+                .orElse(null);
     }
 
     public List<Order> findAll(OrderSerach orderSerach){
@@ -38,6 +61,13 @@ public class OrderRepository {
     }
 
     public List<Order> findAllByString(OrderSerach orderSearch) {
+        return findAllByString(orderSearch, FetchPlan.of(Order.class));
+    }
+
+    /**
+     * 검색 조건 + fetch plan 의 ToOne fetch join 적용 (컬렉션 초기화는 호출한 쪽에서 plan.load)
+     */
+    public List<Order> findAllByString(OrderSerach orderSearch, FetchPlan<Order> fetchPlan) {
         // language=JPAL
         String jpql = "select o From Order o join o.member m";
         boolean isFirstCondition = true;
@@ -63,7 +93,7 @@ public class OrderRepository {
             }
             jpql += " m.name like :name";
         }
-        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+        TypedQuery<Order> query = fetchPlan.applyTo(em, em.createQuery(jpql, Order.class))
                 .setMaxResults(1000); //최대 1000건
         if (orderSearch.getOrderStatus() != null) {
             query = query.setParameter("status", orderSearch.getOrderStatus());
@@ -74,6 +104,45 @@ public class OrderRepository {
         return query.getResultList();
     }
 
+    /**
+     * 기간 검색 - from <= orderDate < to 인 주문을 최신순으로 limit 건
+     * order_date 인덱스 범위만 읽으므로 기간 밖의 주문은 건드리지 않는다.
+     *
+     * 다음 페이지는 마지막으로 받은 주문의 (orderDate, id) 를 cursor 로 넘긴다. (cursorDate 가 null 이면 첫 페이지)
+     */
+    public List<Order> findAllInWindow(OrderSerach orderSearch, LocalDateTime from, LocalDateTime to,
+                                       LocalDateTime cursorDate, Long cursorId, int limit, FetchPlan<Order> fetchPlan) {
+        // language=JPAL
+        String jpql = "select o From Order o join o.member m" +
+                " where o.orderDate >= :from and o.orderDate < :to";
+        if (cursorDate != null) {
+            jpql += " and (o.orderDate < :cursorDate or (o.orderDate = :cursorDate and o.id < :cursorId))";
+        }
+        if (orderSearch.getOrderStatus() != null) {
+            jpql += " and o.status = :status";
+        }
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            jpql += " and m.name like :name";
+        }
+        jpql += " order by o.orderDate desc, o.id desc";
+
+        TypedQuery<Order> query = fetchPlan.applyTo(em, em.createQuery(jpql, Order.class))
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setMaxResults(limit);
+        if (cursorDate != null) {
+            query.setParameter("cursorDate", cursorDate)
+                    .setParameter("cursorId", cursorId);
+        }
+        if (orderSearch.getOrderStatus() != null) {
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            query.setParameter("name", orderSearch.getMemberName());
+        }
+        return query.getResultList();
+    }
+
     public List<Order> findAllByCriteria(OrderSerach orderSearch) {
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<Order> cq = cb.createQuery(Order.class);
@@ -137,4 +206,74 @@ public class OrderRepository {
                 .setMaxResults(limit)
                 .getResultList();
     }
+
+    /**
+     * 페이징 + fetch plan. ToOne 만 fetch join 하므로 DB에서 페이징된다.
+     */
+    public List<Order> findAll(int offset, int limit, FetchPlan<Order> fetchPlan) {
+        return fetchPlan.applyTo(em, em.createQuery("select o from Order o order by o.id", Order.class))
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public void flush() {
+        em.flush();
+    }
+
+    public void clear() {
+        em.clear();
+    }
+
+    /**
+     * 대량 취소 - 주문 상태, 배송 상태를 한 번에 조회
+     */
+    public List<OrderCancelState> findCancelStates(Collection<Long> orderIds) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.OrderCancelState(o.id, m.id, o.status, d.status)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " where o.id in :orderIds", OrderCancelState.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * 대량 취소 - 주문 상태를 update 한 번으로 CANCEL 로 바꾼다.
+     * 벌크 연산은 영속성 컨텍스트와 엔티티 콜백(@Version, @PreUpdate)을 거치지 않으므로 version, lastModifiedDate 를 직접 올린다.
+     * 조회 이후에 다른 트랜잭션이 취소했거나 배송 완료한 주문은 조건에서 빠지므로, 반환된 건수로 충돌을 확인한다.
+     */
+    public int cancelAll(Collection<Long> orderIds, LocalDateTime now) {
+        return em.createQuery(
+                "update Order o" +
+                        " set o.status = :cancel, o.version = o.version + 1, o.lastModifiedDate = :now" +
+                        " where o.id in :orderIds" +
+                        " and o.status = :order" +
+                        " and o.delivery.id not in (select d.id from Delivery d where d.status = :comp)")
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .setParameter("order", OrderStatus.ORDER)
+                .setParameter("comp", DeliveryStatus.COMP)
+                .setParameter("now", now)
+                .setParameter("orderIds", orderIds)
+                .executeUpdate();
+    }
+
+    /**
+     * 상품별 주문 수량 합계 (itemId -> 수량)
+     */
+    public Map<Long, Long> sumCountsByItem(Collection<Long> orderIds) {
+        List<Object[]> rows = em.createQuery(
+                "select oi.item.id, sum(oi.count)" +
+                        " from OrderItem oi" +
+                        " where oi.order.id in :orderIds" +
+                        " group by oi.item.id", Object[].class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+        Map<Long, Long> result = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            result.put((Long) row[0], (Long) row[1]);
+        }
+        return result;
+    }
 }
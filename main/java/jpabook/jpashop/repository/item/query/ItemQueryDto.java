@@ -0,0 +1,23 @@
+package jpabook.jpashop.repository.item.query;
+
+import lombok.Data;
+
+/**
+ * 상품 목록 화면(itemList.html)에서 사용하는 컬럼만 조회한다.
+ * Book, Album, Movie 의 개별 컬럼(author, isbn, artist ...)은 가져오지 않는다.
+ */
+@Data
+public class ItemQueryDto {
+
+    private Long id;
+    private String name;
+    private int price;
+    private int stockQuantity;
+
+    public ItemQueryDto(Long id, String name, int price, int stockQuantity) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+    }
+}
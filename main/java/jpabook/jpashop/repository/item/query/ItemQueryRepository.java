@@ -0,0 +1,86 @@
+package jpabook.jpashop.repository.item.query;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * Item 은 SINGLE_TABLE 전략이라 "select i from Item i" 는 Book, Album, Movie 의 모든 컬럼을 읽어온다.
+ * 화면/API 에서 필요한 컬럼만 DTO로 바로 조회하고, 타입별 조회는 dtype 조건으로 필터링 한다.
+ * (엔티티 하위 타입으로 조회하면 Hibernate가 where dtype = 'B' 같은 조건을 자동으로 붙여준다.)
+ */
+@Repository
+@RequiredArgsConstructor
+public class ItemQueryRepository {
+
+    private final EntityManager em;
+
+    /**
+     * 전체 상품 목록 (공통 컬럼만, 페이징)
+     */
+    public List<ItemQueryDto> findItemDtos(int offset, int limit) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.item.query.ItemQueryDto(i.id, i.name, i.price, i.stockQuantity)" +
+                        " from Item i" +
+                        " order by i.id", ItemQueryDto.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 특정 타입의 상품 목록 (공통 컬럼만, 페이징)
+     * 엔티티 이름은 ItemType 에 정의된 값만 사용하므로 JPQL 에 직접 넣어도 안전하다.
+     */
+    public List<ItemQueryDto> findItemDtos(ItemType type, int offset, int limit) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.item.query.ItemQueryDto(i.id, i.name, i.price, i.stockQuantity)" +
+                        " from " + type.getEntityClass().getSimpleName() + " i" +
+                        " order by i.id", ItemQueryDto.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public List<ItemQueryDto> findItemDtosByIds(List<Long> itemIds) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.item.query.ItemQueryDto(i.id, i.name, i.price, i.stockQuantity)" +
+                        " from Item i" +
+                        " where i.id in :itemIds" +
+                        " order by i.id", ItemQueryDto.class)
+                .setParameter("itemIds", itemIds)
+                .getResultList();
+    }
+
+    public List<BookQueryDto> findBookDtos(int offset, int limit) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.item.query.BookQueryDto(b.id, b.name, b.price, b.stockQuantity, b.author, b.isbn)" +
+                        " from Book b" +
+                        " order by b.id", BookQueryDto.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public List<AlbumQueryDto> findAlbumDtos(int offset, int limit) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.item.query.AlbumQueryDto(a.id, a.name, a.price, a.stockQuantity, a.artist, a.etc)" +
+                        " from Album a" +
+                        " order by a.id", AlbumQueryDto.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public List<MovieQueryDto> findMovieDtos(int offset, int limit) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.item.query.MovieQueryDto(m.id, m.name, m.price, m.stockQuantity, m.director, m.actor)" +
+                        " from Movie m" +
+                        " order by m.id", MovieQueryDto.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
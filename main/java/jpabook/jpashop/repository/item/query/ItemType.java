@@ -0,0 +1,44 @@
+package jpabook.jpashop.repository.item.query;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+
+/**
+ * Item 의 dtype(@DiscriminatorValue) 과 엔티티 클래스를 연결한다.
+ */
+public enum ItemType {
+
+    BOOK("B", Book.class),
+    ALBUM("A", Album.class),
+    MOVIE("M", Movie.class);
+
+    private final String dtype;
+    private final Class<? extends Item> entityClass;
+
+    ItemType(String dtype, Class<? extends Item> entityClass) {
+        this.dtype = dtype;
+        this.entityClass = entityClass;
+    }
+
+    public String getDtype() {
+        return dtype;
+    }
+
+    public Class<? extends Item> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * "B" 같은 dtype 값과 "BOOK" 같은 이름 둘 다 허용한다.
+     */
+    public static ItemType from(String value) {
+        for (ItemType type : values()) {
+            if (type.dtype.equalsIgnoreCase(value) || type.name().equalsIgnoreCase(value)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("존재하지 않는 상품 타입입니다. type=" + value);
+    }
+}
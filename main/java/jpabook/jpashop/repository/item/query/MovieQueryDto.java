@@ -0,0 +1,23 @@
+package jpabook.jpashop.repository.item.query;
+
+import lombok.Data;
+
+@Data
+public class MovieQueryDto {
+
+    private Long id;
+    private String name;
+    private int price;
+    private int stockQuantity;
+    private String director;
+    private String actor;
+
+    public MovieQueryDto(Long id, String name, int price, int stockQuantity, String director, String actor) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+        this.director = director;
+        this.actor = actor;
+    }
+}
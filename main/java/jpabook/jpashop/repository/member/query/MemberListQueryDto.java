@@ -0,0 +1,21 @@
+package jpabook.jpashop.repository.member.query;
+
+import jpabook.jpashop.domain.Address;
+import lombok.Data;
+
+/**
+ * 회원 목록 화면(memberList.html) 용 - 화면에 주소 컬럼이 있으므로 주소까지 조회한다.
+ */
+@Data
+public class MemberListQueryDto {
+
+    private Long id;
+    private String name;
+    private Address address;
+
+    public MemberListQueryDto(Long id, String name, Address address) {
+        this.id = id;
+        this.name = name;
+        this.address = address;
+    }
+}
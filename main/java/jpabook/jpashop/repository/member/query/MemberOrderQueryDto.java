@@ -0,0 +1,27 @@
+package jpabook.jpashop.repository.member.query;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class MemberOrderQueryDto {
+
+    private Long orderId;
+    @JsonIgnore
+    private Long memberId;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private List<OrderItemQueryDto> orderItems;
+
+    public MemberOrderQueryDto(Long orderId, Long memberId, LocalDateTime orderDate, OrderStatus orderStatus) {
+        this.orderId = orderId;
+        this.memberId = memberId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+    }
+}
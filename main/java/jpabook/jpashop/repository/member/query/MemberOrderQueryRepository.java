@@ -0,0 +1,91 @@
+package jpabook.jpashop.repository.member.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static java.util.stream.Collectors.*;
+
+/**
+ * 회원별 주문 내역 조회 (회원 -> 주문 -> 주문상품)
+ *
+ * Member.orders 컬렉션을 지연 로딩으로 돌면 회원 수 + 주문 수 만큼 쿼리가 나간다. (N + 1)
+ * V5(findAllByDto_optimization)처럼 단계마다 식별자를 모아 in 쿼리로 한 번에 조회하고, 메모리에서 Map 으로 조립한다.
+ * Query: 회원 1번, 주문 1번, 주문상품 1번
+ *
+ * 회원마다 최근 주문 N건만 가져오기 위해 주문 조회는 윈도우 함수(row_number)를 쓰는 native SQL 을 사용한다.
+ * (JPQL 은 윈도우 함수를 지원하지 않는다)
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberOrderQueryRepository {
+
+    private final EntityManager em;
+    private final MemberQueryRepository memberQueryRepository;
+    private final OrderQueryRepository orderQueryRepository;
+
+    public List<MemberOrdersQueryDto> findMemberOrders(Long lastId, int limit, int ordersPerMember) {
+        List<MemberQueryDto> members = memberQueryRepository.findMembers(lastId, limit);  // Query 회원 1번
+        if (members.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Long> memberIds = members.stream().map(MemberQueryDto::getId).collect(toList());
+        List<MemberOrderQueryDto> orders = findLatestOrders(memberIds, ordersPerMember);   // Query 주문 1번
+
+        if (!orders.isEmpty()) {
+            List<Long> orderIds = orders.stream().map(MemberOrderQueryDto::getOrderId).collect(toList());
+            Map<Long, List<OrderItemQueryDto>> orderItemMap = orderQueryRepository.findOrderItemMap(orderIds); // Query 주문상품 1번
+            orders.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), Collections.emptyList())));
+        }
+
+        Map<Long, List<MemberOrderQueryDto>> orderMap = orders.stream()
+                .collect(groupingBy(MemberOrderQueryDto::getMemberId, LinkedHashMap::new, toList()));
+
+        return members.stream()
+                .map(m -> new MemberOrdersQueryDto(m.getId(), m.getName(), orderMap.getOrDefault(m.getId(), Collections.emptyList())))
+                .collect(toList());
+    }
+
+    /**
+     * 회원마다 최근 주문을 ordersPerMember 건씩 조회한다.
+     */
+    @SuppressWarnings("unchecked")
+    public List<MemberOrderQueryDto> findLatestOrders(List<Long> memberIds, int ordersPerMember) {
+        List<Object[]> rows = em.createNativeQuery(
+                "select t.order_id, t.member_id, t.order_date, t.status" +
+                        " from (" +
+                        "   select o.order_id, o.member_id, o.order_date, o.status," +
+                        "          row_number() over (partition by o.member_id order by o.order_date desc, o.order_id desc) as rn" +
+                        "   from orders o" +
+                        "   where o.member_id in (:memberIds)" +
+                        " ) t" +
+                        " where t.rn <= :ordersPerMember" +
+                        " order by t.member_id, t.order_date desc, t.order_id desc")
+                .setParameter("memberIds", memberIds)
+                .setParameter("ordersPerMember", ordersPerMember)
+                .getResultList();
+
+        return rows.stream()
+                .map(row -> new MemberOrderQueryDto(
+                        ((Number) row[0]).longValue(),
+                        ((Number) row[1]).longValue(),
+                        toLocalDateTime(row[2]),
+                        row[3] == null ? null : OrderStatus.valueOf(row[3].toString())))
+                .collect(toList());
+    }
+
+    private LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp) {
+            return ((Timestamp) value).toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
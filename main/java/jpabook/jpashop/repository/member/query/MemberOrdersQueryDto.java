@@ -0,0 +1,19 @@
+package jpabook.jpashop.repository.member.query;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MemberOrdersQueryDto {
+
+    private Long memberId;
+    private String name;
+    private List<MemberOrderQueryDto> orders;
+
+    public MemberOrdersQueryDto(Long memberId, String name, List<MemberOrderQueryDto> orders) {
+        this.memberId = memberId;
+        this.name = name;
+        this.orders = orders;
+    }
+}
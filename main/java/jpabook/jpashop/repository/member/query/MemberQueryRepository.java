@@ -0,0 +1,42 @@
+package jpabook.jpashop.repository.member.query;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+/**
+ * 회원 목록 조회용 - 엔티티 대신 필요한 컬럼만 DTO로 조회하고, id 기준 keyset 페이징을 한다.
+ *
+ * offset 페이징은 뒤 페이지로 갈수록 앞의 row 를 모두 읽고 버려야 하지만,
+ * keyset 페이징(where id > :lastId order by id)은 pk 인덱스에서 바로 시작 위치를 찾으므로 몇 번째 페이지든 속도가 같다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MemberQueryRepository {
+
+    private final EntityManager em;
+
+    public List<MemberQueryDto> findMembers(Long lastId, int limit) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.member.query.MemberQueryDto(m.id, m.name)" +
+                        " from Member m" +
+                        " where m.id > :lastId" +
+                        " order by m.id", MemberQueryDto.class)
+                .setParameter("lastId", lastId == null ? 0L : lastId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public List<MemberListQueryDto> findMemberList(Long lastId, int limit) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.member.query.MemberListQueryDto(m.id, m.name, m.address)" +
+                        " from Member m" +
+                        " where m.id > :lastId" +
+                        " order by m.id", MemberListQueryDto.class)
+                .setParameter("lastId", lastId == null ? 0L : lastId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -44,7 +44,29 @@ public class OrderQueryRepository {
         return result;
     }
 
-    private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
+    /**
+     * 회원 한 명의 주문 내역 (V5 방식 - 주문 1번, 주문상품 1번)
+     */
+    public List<OrderQueryDto> findOrdersByMember(Long memberId) {
+        List<OrderQueryDto> result = em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " where m.id = :memberId" +
+                        " order by o.id desc", OrderQueryDto.class)
+                .setParameter("memberId", memberId)
+                .getResultList();
+        if (result.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
+        result.forEach(o -> o.setOrderItems(orderItemMap.getOrDefault(o.getOrderId(), Collections.emptyList())));
+        return result;
+    }
+
+    public Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
         List<OrderItemQueryDto> orderItems = em.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                         " from OrderItem oi" +
@@ -0,0 +1,17 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 대량 등록 파일(CSV, NDJSON)의 한 줄
+ */
+@Getter @Setter
+public class BookImportRow {
+
+    private String name;
+    private int price;
+    private int stockQuantity;
+    private String author;
+    private String isbn;
+}
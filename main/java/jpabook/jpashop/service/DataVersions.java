@@ -0,0 +1,78 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.service.event.MemberChangedEvent;
+import jpabook.jpashop.service.event.OrderChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 데이터 종류별 버전 번호
+ *
+ * ItemService, MemberService, OrderService 의 변경 이벤트가 커밋된 뒤 해당 종류의 버전을 올린다.
+ * 상품 변경(ItemChangedEvent)은 검색 색인을 고친 뒤에 ItemService.onItemChanged 가 올린다.
+ * 화면 캐시, ETag 는 이 버전이 같으면 데이터가 바뀌지 않았다고 보고 DB 조회를 생략한다.
+ * 커밋 전에 올리면 다른 요청이 옛날 데이터를 새 버전으로 캐시할 수 있으므로 반드시 커밋 후에 올린다.
+ *
+ * 버전은 메모리에만 있으므로, 재시작 후 같은 번호가 다시 나와도 구분되도록 시작 시각(epoch)을 함께 붙인다.
+ *
+ * [주의] 버전은 서버(JVM) 한 대 안에서만 맞다. 이 애플리케이션을 거치는 변경만 버전을 올린다.
+ * - 서버를 여러 대 띄우면 다른 서버에서 커밋된 변경은 이 서버의 버전을 올리지 않는다.
+ * - DB 에 직접 실행한 SQL(일괄 수정, 데이터 이관 등)도 버전을 올리지 않는다.
+ * 이런 경우 화면 캐시와 ETag 는 옛날 데이터로 304 를 돌려준다. 여러 대로 운영하려면 버전을 DB 에서 읽도록
+ * (테이블별 max(last_modified_date) 등) 바꾸거나 캐시를 끄고, SQL 을 직접 실행했다면 재시작해서 버전을 새로 시작한다.
+ */
+@Component
+public class DataVersions {
+
+    public enum Domain {
+        ITEM, MEMBER, ORDER
+    }
+
+    private final long epoch = System.currentTimeMillis();
+    private final Map<Domain, AtomicLong> versions = new EnumMap<>(Domain.class);
+
+    public DataVersions() {
+        for (Domain domain : Domain.values()) {
+            versions.put(domain, new AtomicLong());
+        }
+    }
+
+    public long get(Domain domain) {
+        return versions.get(domain).get();
+    }
+
+    public void bump(Domain domain) {
+        versions.get(domain).incrementAndGet();
+    }
+
+    /**
+     * 여러 종류의 데이터를 함께 보여주는 화면용 버전 문자열. ex) "18c2f1a3b40-i3-o7"
+     */
+    public String tag(Domain... domains) {
+        StringBuilder tag = new StringBuilder(Long.toHexString(epoch));
+        for (Domain domain : domains) {
+            tag.append('-').append(Character.toLowerCase(domain.name().charAt(0))).append(get(domain));
+        }
+        return tag.toString();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        bump(Domain.MEMBER);
+    }
+
+    /**
+     * 주문/취소는 상품 재고도 바꾸므로 상품 버전도 함께 올린다. (보관은 재고와 관계 없다.)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        bump(Domain.ORDER);
+        if (event.getType() != OrderChangedEvent.Type.ARCHIVED) {
+            bump(Domain.ITEM);
+        }
+    }
+}
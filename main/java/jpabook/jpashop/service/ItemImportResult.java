@@ -0,0 +1,37 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+@Getter
+public class ItemImportResult {
+
+    private int inserted;
+    private int updated;
+    private int duplicate;  // 같은 batch 안에서 뒤의 줄에 덮어써진 중복 isbn 줄 (등록도 수정도 아님)
+    private int failed;
+
+    public ItemImportResult() {
+    }
+
+    public ItemImportResult(int inserted, int updated, int duplicate, int failed) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.duplicate = duplicate;
+        this.failed = failed;
+    }
+
+    public void add(ItemImportResult other) {
+        this.inserted += other.inserted;
+        this.updated += other.updated;
+        this.duplicate += other.duplicate;
+        this.failed += other.failed;
+    }
+
+    public void addFailed() {
+        this.failed++;
+    }
+
+    public int getProcessed() {
+        return inserted + updated + duplicate + failed;
+    }
+}
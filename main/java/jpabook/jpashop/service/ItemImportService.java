@@ -0,0 +1,174 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 공급사 도서 목록 대량 등록 (CSV, NDJSON)
+ *
+ * 파일 전체를 메모리에 올리지 않고 한 줄씩 읽어서 BATCH_SIZE 만큼 모이면 ItemService.upsertBooks 로 넘긴다.
+ * upsertBooks 는 batch 마다 별도의 트랜잭션으로 실행되므로, 중간에 실패해도 앞선 batch 는 반영된다.
+ * 이 클래스 자체에는 @Transactional 을 걸지 않는다. (전체가 하나의 트랜잭션이 되면 영속성 컨텍스트가 계속 커진다)
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemImportService {
+
+    static final int BATCH_SIZE = 500;
+
+    private final ItemService itemService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * CSV - 첫 줄은 헤더 (name,price,stockQuantity,author,isbn 순서는 자유)
+     */
+    public ItemImportResult importCsv(InputStream in) throws IOException {
+        try (BufferedReader reader = newReader(in)) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return new ItemImportResult();
+            }
+            Map<String, Integer> header = parseHeader(headerLine);
+            return importLines(reader, line -> toRow(header, parseCsvLine(line)));
+        }
+    }
+
+    /**
+     * NDJSON - 한 줄에 JSON 객체 하나 ({"name":"JPA","price":10000,"stockQuantity":10,"author":"kim","isbn":"..."})
+     */
+    public ItemImportResult importNdjson(InputStream in) throws IOException {
+        try (BufferedReader reader = newReader(in)) {
+            return importLines(reader, line -> objectMapper.readValue(line, BookImportRow.class));
+        }
+    }
+
+    private ItemImportResult importLines(BufferedReader reader, LineParser parser) throws IOException {
+        ItemImportResult total = new ItemImportResult();
+        List<BookImportRow> batch = new ArrayList<>(BATCH_SIZE);
+        long lineNumber = 1;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (!StringUtils.hasText(line)) {
+                continue;
+            }
+            try {
+                BookImportRow row = parser.parse(line);
+                validate(row);
+                batch.add(row);
+            } catch (Exception e) {
+                log.warn("item import - skip line {}: {}", lineNumber, e.getMessage());
+                total.addFailed();
+                continue;
+            }
+
+            if (batch.size() == BATCH_SIZE) {
+                flush(batch, total);
+            }
+        }
+        if (!batch.isEmpty()) {
+            flush(batch, total);
+        }
+
+        log.info("item import finished. inserted={}, updated={}, duplicate={}, failed={}",
+                total.getInserted(), total.getUpdated(), total.getDuplicate(), total.getFailed());
+        return total;
+    }
+
+    private void flush(List<BookImportRow> batch, ItemImportResult total) {
+        total.add(itemService.upsertBooks(batch));
+        batch.clear();
+        log.info("item import progress. processed={}, inserted={}, updated={}, duplicate={}, failed={}",
+                total.getProcessed(), total.getInserted(), total.getUpdated(), total.getDuplicate(), total.getFailed());
+    }
+
+    private void validate(BookImportRow row) {
+        if (!StringUtils.hasText(row.getIsbn())) {
+            throw new IllegalArgumentException("isbn 은 필수 입니다.");
+        }
+        if (!StringUtils.hasText(row.getName())) {
+            throw new IllegalArgumentException("상품명은 필수 입니다.");
+        }
+        row.setIsbn(row.getIsbn().trim());
+    }
+
+    private BufferedReader newReader(InputStream in) {
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    private Map<String, Integer> parseHeader(String headerLine) {
+        Map<String, Integer> header = new HashMap<>();
+        List<String> columns = parseCsvLine(headerLine);
+        for (int i = 0; i < columns.size(); i++) {
+            header.put(columns.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+        }
+        return header;
+    }
+
+    private BookImportRow toRow(Map<String, Integer> header, List<String> values) {
+        BookImportRow row = new BookImportRow();
+        row.setName(column(header, values, "name"));
+        row.setPrice(Integer.parseInt(column(header, values, "price").trim()));
+        row.setStockQuantity(Integer.parseInt(column(header, values, "stockquantity").trim()));
+        row.setAuthor(column(header, values, "author"));
+        row.setIsbn(column(header, values, "isbn"));
+        return row;
+    }
+
+    private String column(Map<String, Integer> header, List<String> values, String name) {
+        Integer index = header.get(name);
+        if (index == null || index >= values.size()) {
+            throw new IllegalArgumentException("컬럼이 없습니다. column=" + name);
+        }
+        return values.get(index);
+    }
+
+    /**
+     * 큰따옴표로 감싼 값(쉼표 포함 가능)과 "" 이스케이프를 지원하는 CSV 한 줄 파서
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    @FunctionalInterface
+    private interface LineParser {
+        BookImportRow parse(String line) throws Exception;
+    }
+}
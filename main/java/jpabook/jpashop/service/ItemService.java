@@ -3,30 +3,64 @@ package jpabook.jpashop.service;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.item.query.ItemQueryDto;
+import jpabook.jpashop.repository.item.query.ItemQueryRepository;
+import jpabook.jpashop.service.event.ItemChangedEvent;
+import jpabook.jpashop.service.search.ItemSearchIndex;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
+import java.util.*;
+import java.util.function.Function;
 
+import static java.util.stream.Collectors.toMap;
+
+@Slf4j
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class ItemService {
 
+    private static final int REBUILD_PAGE_SIZE = 1000;
+
     private final ItemRepository itemRepository;
+    private final ItemQueryRepository itemQueryRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final EntityManager em;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataVersions dataVersions;
 
     @Transactional
     public void saveItem(Item item){
+        boolean isNew = item.getId() == null;
         itemRepository.save(item);
+        eventPublisher.publishEvent(new ItemChangedEvent(isNew ? ItemChangedEvent.Type.CREATED : ItemChangedEvent.Type.UPDATED, item.getId()));
     }
 
-    // 변경 감지 기능 사용
+    /**
+     * 변경 감지 기능 사용
+     * 화면의 재고 값으로 덮어쓰므로, 화면을 연 뒤 주문/취소로 재고가 바뀌었다면(version 증가) 수정하지 않고 충돌로 처리한다.
+     *
+     * @param version 수정 화면을 연 시점의 상품 version
+     */
     @Transactional
-    public Item updateItem(Long itemId, String name, int price, int stockQuantity) {
+    public Item updateItem(Long itemId, int version, String name, int price, int stockQuantity) {
 
         Item findItem = itemRepository.findOne(itemId);
+        if (findItem.getVersion() != version) {
+            throw new OptimisticLockException("다른 곳에서 먼저 수정된 상품입니다. itemId=" + itemId, null, findItem);
+        }
         findItem.change(name, price, stockQuantity);
+        eventPublisher.publishEvent(new ItemChangedEvent(ItemChangedEvent.Type.UPDATED, itemId));
 
         /* 위와 같이 setter 대신 change 메서드를 Entity 객체에 만들어야 추적이 쉽다.
         findItem.setPrice(param.getPrice());
@@ -37,6 +71,59 @@ public class ItemService {
         return findItem;
     }
 
+    /**
+     * isbn 기준 Book 대량 등록/수정 (한 batch 단위로 호출된다)
+     * - 기존 Book 은 isbn in 쿼리 한 번으로 찾고, 변경 감지로 수정한다. (merge 처럼 select 후 전체 컬럼을 덮어쓰지 않는다)
+     * - 새 Book 은 persist 하고, jdbc.batch_size 설정에 따라 insert 가 batch로 묶인다.
+     * - 마지막에 flush, clear 하여 영속성 컨텍스트에는 항상 한 batch 분량의 엔티티만 남는다.
+     *   (OSIV 가 켜져 있으면 요청이 끝날 때까지 같은 영속성 컨텍스트를 쓰므로 clear 가 필요하다)
+     */
+    @Transactional
+    public ItemImportResult upsertBooks(List<BookImportRow> rows) {
+        // 같은 batch 안에서 isbn 이 중복되면 마지막 줄을 사용한다.
+        Map<String, BookImportRow> rowsByIsbn = new LinkedHashMap<>();
+        for (BookImportRow row : rows) {
+            rowsByIsbn.put(row.getIsbn(), row);
+        }
+
+        Map<String, Book> existingBooks = itemRepository.findBooksByIsbns(rowsByIsbn.keySet()).stream()
+                .collect(toMap(Book::getIsbn, Function.identity(), (a, b) -> a));
+
+        int inserted = 0;
+        int updated = 0;
+        List<Long> insertedIds = new ArrayList<>();
+        List<Long> updatedIds = new ArrayList<>();
+        for (BookImportRow row : rowsByIsbn.values()) {
+            Book book = existingBooks.get(row.getIsbn());
+            if (book == null) {
+                book = new Book();
+                book.setIsbn(row.getIsbn());
+                book.setAuthor(row.getAuthor());
+                book.change(row.getName(), row.getPrice(), row.getStockQuantity());
+                itemRepository.save(book);
+                insertedIds.add(book.getId());
+                inserted++;
+            } else {
+                book.setAuthor(row.getAuthor());
+                book.change(row.getName(), row.getPrice(), row.getStockQuantity());
+                updatedIds.add(book.getId());
+                updated++;
+            }
+        }
+
+        em.flush();
+        em.clear();
+        if (!insertedIds.isEmpty()) {
+            eventPublisher.publishEvent(new ItemChangedEvent(ItemChangedEvent.Type.CREATED, insertedIds));
+        }
+        if (!updatedIds.isEmpty()) {
+            eventPublisher.publishEvent(new ItemChangedEvent(ItemChangedEvent.Type.UPDATED, updatedIds));
+        }
+
+        // batch 안의 중복 isbn 줄은 마지막 줄만 반영되므로 따로 센다.
+        return new ItemImportResult(inserted, updated, rows.size() - rowsByIsbn.size(), 0);
+    }
+
     public List<Item> findItems(){
         return itemRepository.findAll();
     }
@@ -44,4 +131,64 @@ public class ItemService {
     public Item findOne(Long itemId){
         return itemRepository.findOne(itemId);
     }
+
+    /**
+     * 상품 검색 - 색인에서 id만 찾고, 화면에 필요한 컬럼은 id in 쿼리 한 번으로 가져온다.
+     */
+    public List<ItemQueryDto> searchItems(String query, int limit) {
+        List<Long> itemIds = itemSearchIndex.search(query, limit);
+        if (itemIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return itemQueryRepository.findItemDtosByIds(itemIds);
+    }
+
+    public Optional<ItemQueryDto> findByIsbn(String isbn) {
+        return itemSearchIndex.findByIsbn(isbn)
+                .map(Collections::singletonList)
+                .flatMap(ids -> itemQueryRepository.findItemDtosByIds(ids).stream().findFirst());
+    }
+
+    /**
+     * 커밋된 상품만 색인한다. 롤백(낙관적 락 재시도 등)된 상품이 색인에 남지 않도록 커밋 이후에 DB 에서 다시 읽는다.
+     * 커밋이 끝난 뒤에는 기존 트랜잭션에 참여할 수 없으므로 새 트랜잭션으로 조회한다.
+     *
+     * 상품 버전(DataVersions)은 색인을 고친 뒤에 올린다. 먼저 올리면 상품 검색 화면(/items?q=)이
+     * 고치기 전 색인의 결과를 새 버전으로 캐시할 수 있다. (RenderedViewCache)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        try {
+            List<Long> itemIds = new ArrayList<>(event.getItemIds());
+            for (int from = 0; from < itemIds.size(); from += REBUILD_PAGE_SIZE) {
+                List<Long> chunk = itemIds.subList(from, Math.min(from + REBUILD_PAGE_SIZE, itemIds.size()));
+                itemRepository.findAllByIds(chunk).forEach(itemSearchIndex::index);
+                em.clear();
+            }
+        } finally {
+            dataVersions.bump(DataVersions.Domain.ITEM);   // 색인에 실패해도 목록 화면은 새로 그린다.
+        }
+    }
+
+    /**
+     * DB의 상품으로 검색 색인을 다시 만든다. (애플리케이션 시작 시, 또는 /api/v1/items/search/rebuild)
+     * 한 번에 REBUILD_PAGE_SIZE 만큼만 읽고 영속성 컨텍스트를 비워 전체 상품을 메모리에 올리지 않는다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int rebuildSearchIndex() {
+        itemSearchIndex.clear();
+        int offset = 0;
+        List<Item> items;
+        do {
+            items = itemRepository.findAll(offset, REBUILD_PAGE_SIZE);
+            items.forEach(itemSearchIndex::index);
+            em.clear();
+            offset += items.size();
+        } while (items.size() == REBUILD_PAGE_SIZE);
+        dataVersions.bump(DataVersions.Domain.ITEM);
+
+        log.info("item search index rebuilt. items={}", itemSearchIndex.size());
+        return itemSearchIndex.size();
+    }
 }
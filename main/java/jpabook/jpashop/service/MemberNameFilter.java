@@ -0,0 +1,106 @@
+package jpabook.jpashop.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 회원 이름 Bloom filter
+ *
+ * mightContain 이 false 면 그 이름은 확실히 DB에 없다. -> 회원가입 중복 검사에서 DB 조회를 생략한다.
+ * true 면 있을 수도 있으므로(오탐) DB에서 다시 확인한다.
+ * 이름이 바뀌거나 회원이 지워져도 비트를 지울 수는 없지만, 오탐이 늘어날 뿐 결과가 틀리지는 않는다.
+ *
+ * 애플리케이션 시작 시 DB의 이름을 모두 넣기 전(ready == false)에는 항상 true 를 반환해서 DB로 확인하게 한다.
+ */
+@Component
+public class MemberNameFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+    private volatile boolean ready;
+
+    public MemberNameFilter(@Value("${jpashop.member-name-filter.expected-size:1000000}") long expectedSize,
+                            @Value("${jpashop.member-name-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        // m = -n * ln(p) / (ln 2)^2, k = m / n * ln 2
+        long m = (long) Math.ceil(-expectedSize * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitSize = Math.max(64, (m + 63) / 64 * 64);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitSize / expectedSize * Math.log(2)));
+        this.bits = new AtomicLongArray((int) (bitSize / 64));
+    }
+
+    public void put(String name) {
+        if (name == null) {
+            return;
+        }
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            setBit(index(h1 + (long) i * h2));
+        }
+    }
+
+    public boolean mightContain(String name) {
+        if (!ready || name == null) {
+            return true;
+        }
+        long hash = hash(name);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = index(h1 + (long) i * h2);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * DB의 이름을 모두 넣은 뒤 호출한다.
+     */
+    public void markReady() {
+        this.ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private long index(long combinedHash) {
+        return Math.floorMod(combinedHash, bitSize);
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    /**
+     * 64bit FNV-1a 후 MurmurHash3 의 fmix64 로 비트를 섞는다. 상위/하위 32bit 를 두 개의 해시로 사용한다. (double hashing)
+     */
+    private static long hash(String name) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -2,19 +2,30 @@ package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.service.event.MemberChangedEvent;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.*;
 
+@Slf4j
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class MemberService {
 
+    private static final int WARM_UP_PAGE_SIZE = 1000;
+    private static final int BULK_BATCH_SIZE = 100;    // jdbc.batch_size 와 맞춘다.
+
     private final MemberRepository memberRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 회원가입
@@ -23,16 +34,86 @@ public class MemberService {
     public Long join(Member member){
         validateDuplicateMember(member);    // 중복 회원 검증
         memberRepository.save(member);
+        try {
+            memberRepository.flush();   // 동시에 같은 이름으로 가입한 경우 unique 제약조건에 걸린다.
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+        memberNameFilter.put(member.getName());
+        eventPublisher.publishEvent(new MemberChangedEvent(member.getId(), member.getName()));
         return member.getId();
     }
 
+    /**
+     * 회원 대량 가입
+     * - 중복 검사는 이름 목록으로 in 쿼리 한 번에 처리한다. (요청 안에서 중복된 이름도 함께 걸러낸다)
+     * - BULK_BATCH_SIZE 마다 flush, clear 하여 insert 를 JDBC batch 로 보내고 영속성 컨텍스트를 비운다.
+     *
+     * @return 요청과 같은 순서의 회원 id 목록. 이미 존재하는 이름이면 null
+     */
+    @Transactional
+    public List<Long> joinAll(List<Member> members) {
+        Set<String> names = new HashSet<>();
+        members.forEach(m -> names.add(m.getName()));
+        Set<String> taken = new HashSet<>(memberRepository.findExistingNames(names));
+
+        List<Long> ids = new ArrayList<>(members.size());
+        List<Member> pending = new ArrayList<>(BULK_BATCH_SIZE);
+        for (Member member : members) {
+            if (!taken.add(member.getName())) {
+                ids.add(null);
+                continue;
+            }
+            memberRepository.save(member);
+            pending.add(member);
+            ids.add(member.getId());    // 시퀀스 전략이므로 persist 시점에 id 가 정해진다.
+
+            if (pending.size() == BULK_BATCH_SIZE) {
+                flushAndClear(pending);
+            }
+        }
+        flushAndClear(pending);
+        return ids;
+    }
+
+    private void flushAndClear(List<Member> pending) {
+        memberRepository.flush();
+        for (Member member : pending) {
+            memberNameFilter.put(member.getName());
+            eventPublisher.publishEvent(new MemberChangedEvent(member.getId(), member.getName()));
+        }
+        pending.clear();
+        memberRepository.clear();
+    }
+
+    /**
+     * 대부분의 가입은 처음 보는 이름이므로, Bloom filter 가 "확실히 없다"고 하면 DB 조회를 생략한다.
+     * 있을 수도 있다고 할 때만 엔티티 대신 id 하나만 조회해서 확인한다.
+     */
     private void validateDuplicateMember(Member member) {
-        List<Member> findMembers = memberRepository.findByName(member.getName());
-        if(!findMembers.isEmpty()){
+        if(memberNameFilter.mightContain(member.getName())
+                && memberRepository.existsByName(member.getName())){
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
     }
 
+    /**
+     * 애플리케이션 시작 시 DB의 회원 이름을 Bloom filter 에 넣는다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpMemberNameFilter() {
+        int offset = 0;
+        List<String> names;
+        do {
+            names = memberRepository.findNames(offset, WARM_UP_PAGE_SIZE);
+            names.forEach(memberNameFilter::put);
+            offset += names.size();
+        } while (names.size() == WARM_UP_PAGE_SIZE);
+
+        memberNameFilter.markReady();
+        log.info("member name filter ready. members={}", offset);
+    }
+
     // 회원 전체 조회
     public List<Member> findMembers(){
         return memberRepository.findAll();
@@ -53,5 +134,7 @@ public class MemberService {
     public void update(Long id, String name) {
         Member member = memberRepository.findOne(id);
         member.setName(name);
+        memberNameFilter.put(name);
+        eventPublisher.publishEvent(new MemberChangedEvent(id, name));
     }
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대량 주문 취소 결과
+ */
+@Getter
+public class OrderCancelResult {
+
+    private final List<Long> canceled = new ArrayList<>();
+    private final List<Long> alreadyCanceled = new ArrayList<>();
+    private final List<Long> delivered = new ArrayList<>();    // 배송 완료되어 취소 불가
+    private final List<Long> notFound = new ArrayList<>();
+}
@@ -0,0 +1,124 @@
+package jpabook.jpashop.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 주문 멱등성 키 -> 주문 id (메모리, 시간 버킷)
+ *
+ * 1분 단위 버킷 BUCKETS 개를 돌려 쓴다. 새 키는 현재 분의 버킷에 넣고, 조회는 최근 BUCKETS 분의 버킷을 모두 본다.
+ * 버킷 자리가 다음 바퀴에 다시 쓰일 때 통째로 버리므로 따로 만료 처리를 하지 않는다. (키는 9 ~ 10분 동안 유지)
+ *
+ * 처리 중인 키는 CompletableFuture 로 넣어두므로, 더블클릭처럼 거의 동시에 들어온 요청은 먼저 온 요청의 결과를 기다렸다가 같은 id 를 받는다.
+ * 먼저 온 요청이 실패하면 키를 지우고, 기다리던 요청이 다시 처리한다.
+ */
+@Component
+public class OrderIdempotencyStore {
+
+    private static final int BUCKETS = 10;
+    private static final long BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final long WAIT_SECONDS = 10;
+
+    private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(BUCKETS);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 키가 있으면 저장된 id 를, 없으면 action 을 실행해서 저장한 id 를 돌려준다.
+     */
+    public Long computeIfAbsent(String key, Supplier<Long> action) {
+        while (true) {
+            long bucketId = System.currentTimeMillis() / BUCKET_MILLIS;
+            CompletableFuture<Long> existing = find(key, bucketId);
+            if (existing == null) {
+                Bucket bucket = current(bucketId);
+                CompletableFuture<Long> mine = new CompletableFuture<>();
+                existing = bucket.entries.putIfAbsent(key, mine);
+                if (existing == null) {
+                    misses.increment();
+                    return run(key, action, bucket, mine);
+                }
+            }
+            hits.increment();
+            try {
+                return existing.get(WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                // 먼저 온 요청이 실패했다. 키가 지워졌으므로 다시 시도한다.
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("같은 주문을 처리 중입니다. key=" + key);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for order key=" + key, e);
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private Long run(String key, Supplier<Long> action, Bucket bucket, CompletableFuture<Long> mine) {
+        Long orderId;
+        try {
+            orderId = action.get();
+        } catch (RuntimeException e) {
+            bucket.entries.remove(key, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+        mine.complete(orderId);
+        return orderId;
+    }
+
+    private CompletableFuture<Long> find(String key, long bucketId) {
+        for (int i = 0; i < BUCKETS; i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket != null && bucketId - bucket.id < BUCKETS) {
+                CompletableFuture<Long> future = bucket.entries.get(key);
+                if (future != null) {
+                    return future;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 현재 분의 버킷. 자리에 이전 바퀴의 버킷이 있으면 새 버킷으로 바꾼다.
+     */
+    private Bucket current(long bucketId) {
+        int slot = (int) (bucketId % BUCKETS);
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.id == bucketId) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(bucketId);
+            if (buckets.compareAndSet(slot, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static class Bucket {
+
+        private final long id;
+        private final ConcurrentHashMap<String, CompletableFuture<Long>> entries = new ConcurrentHashMap<>();
+
+        private Bucket(long id) {
+            this.id = id;
+        }
+    }
+}
@@ -1,19 +1,31 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.aop.Retry;
+import jpabook.jpashop.audit.OrderAuditRecord;
 import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderArchiveRepository;
+import jpabook.jpashop.repository.OrderCancelState;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSerach;
+import jpabook.jpashop.service.event.OrderAuditEvent;
+import jpabook.jpashop.service.event.OrderChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
@@ -23,12 +35,25 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OrderArchiveRepository orderArchiveRepository;
 
     /**
      * 주문
+     * 같은 상품의 재고를 동시에 줄이면 Item 의 version 충돌이 나므로 트랜잭션을 다시 실행한다.
      */
+    @Retry
     @Transactional
     public Long order(Long memberId, Long itemId, int count){
+        return order(memberId, itemId, count, null);
+    }
+
+    /**
+     * 멱등성 키와 함께 주문 - 같은 키의 주문이 이미 있으면 커밋할 때 unique 위반으로 롤백된다. (OrderSubmitService)
+     */
+    @Retry
+    @Transactional
+    public Long order(Long memberId, Long itemId, int count, String idempotencyKey){
 
         // 엔티티 조회
         Member member = memberRepository.findOne(memberId);
@@ -43,24 +68,129 @@ public class OrderService {
 
         // 주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
+        order.setIdempotencyKey(idempotencyKey);
 
         // 주문 저장 (CascadeType.ALL 옵션을 주어서 delivery, orderItem 이 자동으로 persist 된다.)
         // CascadeType.ALL의 경우 private Owner인 경우만 사용한다.
         // ex. delivery, orderItem 은 order 엔티티 에서만 참조하고 사용한다.
         orderRepository.save(order);
 
+        eventPublisher.publishEvent(new OrderChangedEvent(OrderChangedEvent.Type.ORDERED, order.getId(), memberId));
+        eventPublisher.publishEvent(new OrderAuditEvent(createdRecords(order)));
         return order.getId();
     }
 
     /**
      * 주문 취소
      */
+    @Retry
     @Transactional
     public void cancelOrder(Long orderId){
         // 주문 엔티티 조회
         Order order = orderRepository.findOne(orderId);
         // 주문 취소
         order.cancel();
+
+        eventPublisher.publishEvent(new OrderChangedEvent(OrderChangedEvent.Type.CANCELED, orderId, order.getMember().getId()));
+        eventPublisher.publishEvent(new OrderAuditEvent(
+                Collections.singletonList(OrderAuditRecord.canceled(orderId, System.currentTimeMillis()))));
+    }
+
+    /**
+     * 주문 생성 + 주문상품 추가 레코드 (id 는 persist 이후에 생기므로 저장한 뒤에 만든다.)
+     */
+    private List<OrderAuditRecord> createdRecords(Order order) {
+        long now = System.currentTimeMillis();
+        List<OrderAuditRecord> records = new ArrayList<>();
+        records.add(OrderAuditRecord.created(order, now));
+        for (OrderItem orderItem : order.getOrderItems()) {
+            records.add(OrderAuditRecord.itemAdded(order, orderItem, now));
+        }
+        return records;
+    }
+
+    private static final int CANCEL_CHUNK_SIZE = 1000;    // in 절 파라미터 수 제한
+
+    /**
+     * 대량 주문 취소 (부정 주문 정리, 결제 실패 건 일괄 취소 등)
+     *
+     * Order.cancel() 처럼 엔티티를 하나씩 바꾸지 않고, 1000건 단위로
+     * 1. 주문 상태, 배송 상태를 한 번에 조회해서 취소 가능한 주문을 고른다.
+     * 2. 주문 상태를 update 한 번으로 CANCEL 로 바꾼다.
+     * 3. 상품별 수량을 합산해서, 같은 수량만큼 늘어나는 상품끼리 재고 update 를 한 번씩 실행한다.
+     *
+     * 조회와 update 사이에 다른 트랜잭션이 주문을 바꾸면 update 건수가 달라지므로 전체를 롤백하고 다시 실행한다. (@Retry)
+     * 벌크 연산은 영속성 컨텍스트를 거치지 않으므로 시작 전에 flush, 끝나면 clear 해서 이후 조회가 DB 값을 읽게 한다.
+     */
+    @Retry
+    @Transactional
+    public OrderCancelResult cancelOrders(Collection<Long> orderIds) {
+        OrderCancelResult result = new OrderCancelResult();
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        LocalDateTime now = LocalDateTime.now();
+        List<OrderChangedEvent> events = new ArrayList<>();
+
+        orderRepository.flush();
+        for (int from = 0; from < ids.size(); from += CANCEL_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + CANCEL_CHUNK_SIZE, ids.size()));
+
+            Map<Long, OrderCancelState> states = new HashMap<>();
+            for (OrderCancelState state : orderRepository.findCancelStates(chunk)) {
+                states.put(state.getOrderId(), state);
+            }
+
+            List<Long> cancelable = new ArrayList<>();
+            for (Long orderId : chunk) {
+                OrderCancelState state = states.get(orderId);
+                if (state == null) {
+                    result.getNotFound().add(orderId);
+                } else if (state.getStatus() == OrderStatus.CANCEL) {
+                    result.getAlreadyCanceled().add(orderId);
+                } else if (state.getDeliveryStatus() == DeliveryStatus.COMP) {
+                    result.getDelivered().add(orderId);
+                } else {
+                    cancelable.add(orderId);
+                    events.add(new OrderChangedEvent(OrderChangedEvent.Type.CANCELED, orderId, state.getMemberId()));
+                }
+            }
+            if (cancelable.isEmpty()) {
+                continue;
+            }
+
+            int updated = orderRepository.cancelAll(cancelable, now);
+            if (updated != cancelable.size()) {
+                throw new OptimisticLockingFailureException(
+                        "취소 도중 주문 상태가 바뀌었습니다. expected=" + cancelable.size() + ", updated=" + updated);
+            }
+
+            // 수량별로 상품을 묶는다. ex) {1: [상품A, 상품C], 3: [상품B]} -> update 2번
+            Map<Integer, List<Long>> itemsByQuantity = new HashMap<>();
+            orderRepository.sumCountsByItem(cancelable).forEach((itemId, quantity) ->
+                    itemsByQuantity.computeIfAbsent(Math.toIntExact(quantity), q -> new ArrayList<>()).add(itemId));
+            itemsByQuantity.forEach((quantity, itemIds) -> itemRepository.addStock(itemIds, quantity));
+
+            result.getCanceled().addAll(cancelable);
+        }
+        orderRepository.clear();
+
+        events.forEach(eventPublisher::publishEvent);
+        long canceledAt = System.currentTimeMillis();
+        eventPublisher.publishEvent(new OrderAuditEvent(result.getCanceled().stream()
+                .map(orderId -> OrderAuditRecord.canceled(orderId, canceledAt))
+                .collect(Collectors.toList())));
+        return result;
+    }
+
+    /**
+     * 멱등성 키로 주문 id 조회 - 주문 테이블에 없으면 보관 테이블(orders_archive)에서 찾는다.
+     */
+    public Long findOrderIdByIdempotencyKey(String idempotencyKey) {
+        Long orderId = orderRepository.findIdByIdempotencyKey(idempotencyKey);
+        return orderId != null ? orderId : findArchivedOrderIdByIdempotencyKey(idempotencyKey);
+    }
+
+    public Long findArchivedOrderIdByIdempotencyKey(String idempotencyKey) {
+        return orderArchiveRepository.findIdByIdempotencyKey(idempotencyKey);
     }
 
     /**
@@ -0,0 +1,45 @@
+package jpabook.jpashop.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+/**
+ * 멱등성 키가 있는 주문 - 같은 키로 다시 요청하면(더블클릭, 네트워크 재시도) 새로 주문하지 않고 처음 주문의 id 를 돌려준다.
+ *
+ * 1. 메모리(OrderIdempotencyStore)에 키가 있으면 OrderService.order 를 호출하지 않는다. (DB 조회 없음)
+ * 2. 없으면 보관된 주문(orders_archive)의 키인지 먼저 확인한다. 보관되면 orders 의 unique 로는 막을 수 없기 때문이다.
+ * 3. 그래도 없으면 주문하면서 키를 함께 저장한다. (orders.idempotency_key unique)
+ * 4. 재시작 등으로 메모리에는 없지만 DB 에 있는 키는 unique 위반으로 롤백되므로(재고도 그대로), 그때만 DB 에서 처음 주문의 id 를 찾는다.
+ *
+ * 트랜잭션이 커밋된 뒤에 unique 위반을 확인해야 하므로 이 클래스에는 @Transactional 을 걸지 않는다.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderSubmitService {
+
+    private final OrderService orderService;
+    private final OrderIdempotencyStore orderIdempotencyStore;
+
+    public Long submit(String idempotencyKey, Long memberId, Long itemId, int count) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return orderService.order(memberId, itemId, count);
+        }
+        return orderIdempotencyStore.computeIfAbsent(idempotencyKey, () -> {
+            Long archivedOrderId = orderService.findArchivedOrderIdByIdempotencyKey(idempotencyKey);
+            if (archivedOrderId != null) {
+                return archivedOrderId;
+            }
+            try {
+                return orderService.order(memberId, itemId, count, idempotencyKey);
+            } catch (DataIntegrityViolationException e) {
+                Long orderId = orderService.findOrderIdByIdempotencyKey(idempotencyKey);
+                if (orderId == null) {
+                    throw e;
+                }
+                return orderId;
+            }
+        });
+    }
+}
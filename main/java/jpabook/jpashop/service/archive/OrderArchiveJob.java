@@ -0,0 +1,55 @@
+package jpabook.jpashop.service.archive;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * 보관 대상이 없을 때까지 OrderArchiveService.archiveBatch 를 반복한다. (배치마다 커밋)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderArchiveJob {
+
+    private final OrderArchiveService orderArchiveService;
+
+    /**
+     * @param age 주문한 지 age 가 지난 주문을 보관한다.
+     */
+    public OrderArchiveResult run(Duration age, int batchSize) {
+        return run(LocalDateTime.now().minus(age), batchSize);
+    }
+
+    /**
+     * 월 단위 보관 - retainFrom 이전 월의 취소/배송완료 주문을 보관한다. (주문 테이블에는 retainFrom 이후 월만 남는다.)
+     * 월 경계로 자르므로 기간 검색(OrderQueryService.findOrdersInWindow)이 읽는 월과 어긋나지 않는다.
+     */
+    public OrderArchiveResult runBefore(YearMonth retainFrom, int batchSize) {
+        return run(retainFrom.atDay(1).atStartOfDay(), batchSize);
+    }
+
+    private OrderArchiveResult run(LocalDateTime cutoff, int batchSize) {
+        long start = System.nanoTime();
+        int archived = 0;
+        int batches = 0;
+        while (true) {
+            int moved = orderArchiveService.archiveBatch(cutoff, batchSize);
+            if (moved == 0) {
+                break;
+            }
+            archived += moved;
+            batches++;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        log.info("order archive: cutoff={}, archived={}, batches={}, {}ms", cutoff, archived, batches, elapsedMillis);
+        return new OrderArchiveResult(cutoff, archived, batches, elapsedMillis);
+    }
+}
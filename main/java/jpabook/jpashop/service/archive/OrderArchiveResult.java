@@ -0,0 +1,21 @@
+package jpabook.jpashop.service.archive;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class OrderArchiveResult {
+
+    private final LocalDateTime cutoff;
+    private final int archived;     // 보관 테이블로 옮긴 주문 수
+    private final int batches;
+    private final long elapsedMillis;
+
+    public OrderArchiveResult(LocalDateTime cutoff, int archived, int batches, long elapsedMillis) {
+        this.cutoff = cutoff;
+        this.archived = archived;
+        this.batches = batches;
+        this.elapsedMillis = elapsedMillis;
+    }
+}
@@ -0,0 +1,59 @@
+package jpabook.jpashop.service.archive;
+
+import jpabook.jpashop.repository.OrderArchiveRepository;
+import jpabook.jpashop.repository.OrderArchiveTarget;
+import jpabook.jpashop.service.event.OrderChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 주문 보관 - 한 배치(batchSize 건)를 트랜잭션 하나로 옮긴다.
+ *
+ * 트랜잭션이 짧게 끝나야 주문 테이블의 락을 오래 잡지 않으므로, 전체 보관은 OrderArchiveJob 이 배치를 반복한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderArchiveService {
+
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * @return 옮긴 주문 수 (batchSize 보다 작으면 남은 대상이 없다.)
+     */
+    @Transactional
+    public int archiveBatch(LocalDateTime cutoff, int batchSize) {
+        List<OrderArchiveTarget> targets = orderArchiveRepository.findTargets(cutoff, batchSize);
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        List<Long> orderIds = targets.stream().map(OrderArchiveTarget::getOrderId).collect(toList());
+        List<Long> deliveryIds = targets.stream().map(OrderArchiveTarget::getDeliveryId).collect(toList());
+
+        int copied = orderArchiveRepository.copy(orderIds, deliveryIds, LocalDateTime.now());
+        int deleted = orderArchiveRepository.delete(orderIds, deliveryIds);
+        if (copied != targets.size() || deleted != targets.size()) {
+            // 조회 이후 다른 트랜잭션이 주문을 지웠다. 복사한 것까지 롤백한다.
+            throw new OptimisticLockingFailureException("archived " + deleted + " of " + targets.size() + " orders");
+        }
+
+        Set<Long> memberIds = new LinkedHashSet<>();
+        for (OrderArchiveTarget target : targets) {
+            if (memberIds.add(target.getMemberId())) {
+                eventPublisher.publishEvent(new OrderChangedEvent(OrderChangedEvent.Type.ARCHIVED,
+                        target.getOrderId(), target.getMemberId()));
+            }
+        }
+        return targets.size();
+    }
+}
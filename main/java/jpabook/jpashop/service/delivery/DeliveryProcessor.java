@@ -0,0 +1,112 @@
+package jpabook.jpashop.service.delivery;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 여러 작업자 스레드로 READY 배송을 모두 처리한다.
+ *
+ * 작업자마다 claim -> handler -> complete 를 반복하고, 가져갈 배송이 연속으로 없으면 끝낸다.
+ * 같은 배송은 한 작업자만 가져가므로 handler 는 배송마다 한 번만 호출된다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeliveryProcessor {
+
+    private static final int MAX_EMPTY_CLAIMS = 3;
+    private static final long EMPTY_CLAIM_BACKOFF_MILLIS = 10;
+
+    private final DeliveryService deliveryService;
+
+    public DeliveryRunResult run(int workers, int batchSize) throws InterruptedException {
+        return run(workers, batchSize, deliveryIds -> { });
+    }
+
+    /**
+     * @param handler 가져간 배송 id 로 실제 배송 처리(택배사 전송 등)를 한다. 트랜잭션 밖에서 호출된다.
+     *                예외가 나면 해당 배치는 COMP 로 바꾸지 않고 돌려놓는다.
+     */
+    public DeliveryRunResult run(int workers, int batchSize, Consumer<List<Long>> handler) throws InterruptedException {
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        AtomicInteger failedBatches = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    work(batchSize, handler, completed, batches, conflicts, failedBatches);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    log.error("delivery worker failed", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        DeliveryRunResult result = new DeliveryRunResult(workers, completed.get(), batches.get(),
+                conflicts.get(), failedBatches.get(), elapsedMillis);
+        log.info("delivery run: workers={}, completed={}, batches={}, conflicts={}, failed={}, {}ms ({}/s)",
+                workers, result.getCompleted(), result.getBatches(), result.getConflicts(), result.getFailedBatches(),
+                elapsedMillis, String.format("%.1f", result.getThroughputPerSecond()));
+        return result;
+    }
+
+    private void work(int batchSize, Consumer<List<Long>> handler, AtomicInteger completed,
+                      AtomicInteger batches, AtomicInteger conflicts, AtomicInteger failedBatches) throws InterruptedException {
+        int emptyClaims = 0;
+        while (emptyClaims < MAX_EMPTY_CLAIMS && !Thread.currentThread().isInterrupted()) {
+            String token = UUID.randomUUID().toString();
+            List<Long> claimed;
+            try {
+                claimed = deliveryService.claim(token, batchSize);
+            } catch (ConcurrencyFailureException e) {
+                conflicts.incrementAndGet();    // 다른 작업자와 같은 행을 동시에 update (락 대기 시간 초과 등)
+                Thread.sleep(EMPTY_CLAIM_BACKOFF_MILLIS);
+                continue;
+            }
+            if (claimed.isEmpty()) {
+                emptyClaims++;
+                Thread.sleep(EMPTY_CLAIM_BACKOFF_MILLIS);
+                continue;
+            }
+            emptyClaims = 0;
+
+            try {
+                handler.accept(claimed);
+            } catch (RuntimeException e) {
+                log.warn("delivery batch failed, releasing {} deliveries", claimed.size(), e);
+                deliveryService.release(token);
+                failedBatches.incrementAndGet();
+                continue;
+            }
+            completed.addAndGet(deliveryService.complete(token));
+            batches.incrementAndGet();
+        }
+    }
+}
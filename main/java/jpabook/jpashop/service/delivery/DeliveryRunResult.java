@@ -0,0 +1,27 @@
+package jpabook.jpashop.service.delivery;
+
+import lombok.Getter;
+
+@Getter
+public class DeliveryRunResult {
+
+    private final int workers;
+    private final int completed;        // COMP 로 바뀐 배송 수
+    private final int batches;
+    private final int conflicts;        // 락 충돌로 다시 시도한 횟수
+    private final int failedBatches;    // handler 예외로 돌려놓은 배치 수
+    private final long elapsedMillis;
+
+    public DeliveryRunResult(int workers, int completed, int batches, int conflicts, int failedBatches, long elapsedMillis) {
+        this.workers = workers;
+        this.completed = completed;
+        this.batches = batches;
+        this.conflicts = conflicts;
+        this.failedBatches = failedBatches;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public double getThroughputPerSecond() {
+        return completed * 1000.0 / Math.max(elapsedMillis, 1);
+    }
+}
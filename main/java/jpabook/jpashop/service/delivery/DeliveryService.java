@@ -0,0 +1,83 @@
+package jpabook.jpashop.service.delivery;
+
+import jpabook.jpashop.audit.OrderAuditRecord;
+import jpabook.jpashop.repository.DeliveryRepository;
+import jpabook.jpashop.service.event.OrderAuditEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 배송 상태 전이 (READY -> COMP)
+ *
+ * 1. claim    : READY 배송을 batchSize 만큼 가져간다. (커밋해서 다른 작업자에게 보이게 한다.)
+ * 2. 처리      : 트랜잭션 밖에서 (DeliveryProcessor 의 handler)
+ * 3. complete : 가져간 배송을 update 한 번으로 COMP 로 바꾼다.
+ *
+ * 가져간 뒤 CLAIM_TIMEOUT 안에 complete 하지 못하면(작업자 장애) 다른 작업자가 다시 가져갈 수 있다.
+ */
+@Service
+@RequiredArgsConstructor
+public class DeliveryService {
+
+    static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(5);
+    private static final int CANDIDATE_FACTOR = 4;
+
+    private final DeliveryRepository deliveryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 여러 작업자가 같은 후보의 앞부분을 두고 경쟁하지 않도록 batchSize 의 몇 배를 읽어서 섞은 뒤 일부만 가져간다.
+     * 다른 작업자가 먼저 가져간 행은 update 조건에서 빠지므로 batchSize 보다 적게 가져갈 수 있다.
+     *
+     * @return 가져간 배송 id. 비어 있으면 가져갈 배송이 없거나 경쟁에서 모두 졌다.
+     */
+    @Transactional
+    public List<Long> claim(String token, int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minus(CLAIM_TIMEOUT);
+
+        List<Long> candidates = new ArrayList<>(deliveryRepository.findClaimCandidates(staleBefore, batchSize * CANDIDATE_FACTOR));
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Collections.shuffle(candidates);
+        List<Long> picked = candidates.subList(0, Math.min(batchSize, candidates.size()));
+
+        if (deliveryRepository.claim(picked, token, now, staleBefore) == 0) {
+            return Collections.emptyList();
+        }
+        return deliveryRepository.findClaimed(token);
+    }
+
+    /**
+     * @return COMP 로 바뀐 건수 (그 사이 취소된 주문의 배송은 돌려놓는다.)
+     */
+    @Transactional
+    public int complete(String token) {
+        deliveryRepository.touchOrders(token, LocalDateTime.now());
+        List<Long> orderIds = deliveryRepository.findCompletableOrderIds(token);   // touchOrders 로 잠근 주문
+        int completed = deliveryRepository.complete(token);
+        deliveryRepository.release(token);
+
+        long now = System.currentTimeMillis();
+        eventPublisher.publishEvent(new OrderAuditEvent(orderIds.stream()
+                .map(orderId -> OrderAuditRecord.deliveryCompleted(orderId, now))
+                .collect(toList())));
+        return completed;
+    }
+
+    @Transactional
+    public int release(String token) {
+        return deliveryRepository.release(token);
+    }
+}
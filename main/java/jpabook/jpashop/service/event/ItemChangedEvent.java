@@ -0,0 +1,29 @@
+package jpabook.jpashop.service.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 상품이 등록되거나 상품 정보(이름, 가격 등)가 수정되었을 때 발행한다. 대량 등록/수정은 한 번에 묶어서 발행한다.
+ */
+@Getter
+public class ItemChangedEvent {
+
+    public enum Type {
+        CREATED, UPDATED
+    }
+
+    private final Type type;
+    private final Collection<Long> itemIds;
+
+    public ItemChangedEvent(Type type, Long itemId) {
+        this(type, Collections.singletonList(itemId));
+    }
+
+    public ItemChangedEvent(Type type, Collection<Long> itemIds) {
+        this.type = type;
+        this.itemIds = itemIds;
+    }
+}
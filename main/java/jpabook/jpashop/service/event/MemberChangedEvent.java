@@ -0,0 +1,18 @@
+package jpabook.jpashop.service.event;
+
+import lombok.Getter;
+
+/**
+ * 회원이 가입하거나 회원 정보(이름 등)가 수정되었을 때 발행한다.
+ */
+@Getter
+public class MemberChangedEvent {
+
+    private final Long memberId;
+    private final String name;
+
+    public MemberChangedEvent(Long memberId, String name) {
+        this.memberId = memberId;
+        this.name = name;
+    }
+}
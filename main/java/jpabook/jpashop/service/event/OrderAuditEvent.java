@@ -0,0 +1,20 @@
+package jpabook.jpashop.service.event;
+
+import jpabook.jpashop.audit.OrderAuditRecord;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 주문 이벤트 로그에 남길 레코드 - 주문 생성, 주문상품 추가, 취소, 배송 완료 시 발행한다.
+ * OrderAuditListener 가 커밋 이후에 로그 파일에 추가한다.
+ */
+@Getter
+public class OrderAuditEvent {
+
+    private final List<OrderAuditRecord> records;
+
+    public OrderAuditEvent(List<OrderAuditRecord> records) {
+        this.records = records;
+    }
+}
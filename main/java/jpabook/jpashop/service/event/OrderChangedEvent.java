@@ -0,0 +1,26 @@
+package jpabook.jpashop.service.event;
+
+import lombok.Getter;
+
+/**
+ * 주문이 생성/취소/보관 되었을 때 발행한다.
+ * 리스너는 @TransactionalEventListener 로 받아서 트랜잭션이 커밋된 뒤에만 처리한다. (롤백된 주문은 무시)
+ */
+@Getter
+public class OrderChangedEvent {
+
+    public enum Type {
+        ORDERED, CANCELED,
+        ARCHIVED    // 보관 테이블로 옮겨져 주문 목록에서 빠졌다.
+    }
+
+    private final Type type;
+    private final Long orderId;
+    private final Long memberId;
+
+    public OrderChangedEvent(Type type, Long orderId, Long memberId) {
+        this.type = type;
+        this.orderId = orderId;
+        this.memberId = memberId;
+    }
+}
@@ -0,0 +1,182 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.service.event.ItemChangedEvent;
+import jpabook.jpashop.service.event.MemberChangedEvent;
+import jpabook.jpashop.service.event.OrderChangedEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 회원별 주문 내역 캐시 (key : memberId)
+ *
+ * - 크기 제한 : 항목 수가 아니라 주문 + 주문상품 개수의 합(weight)으로 제한하고, 넘치면 가장 오래 안 쓴 회원부터 버린다. (LRU)
+ * - 무효화 : 주문/취소, 회원 정보 수정은 해당 회원만, 상품 수정은 상품명이 여러 회원의 내역에 들어 있으므로 전체를 비운다.
+ *           트랜잭션이 커밋된 뒤에 무효화해야 다른 요청이 커밋 전의 값을 다시 캐시에 넣지 않는다.
+ * - 동시 미스 : 같은 회원을 동시에 조회하면 첫 요청만 DB를 조회하고 나머지는 그 결과를 기다린다. (stampede 방지)
+ *              조회 중에 무효화되면 결과는 반환하되 캐시에는 넣지 않는다.
+ *
+ * 캐시된 목록은 수정할 수 없는 List 로 감싸서 보관한다. 꺼내 쓴 쪽에서 DTO 를 수정하면 안 된다.
+ */
+@Component
+public class OrderHistoryCache {
+
+    private final long maxWeight;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ConcurrentHashMap<Long, CompletableFuture<List<OrderQueryDto>>> loading = new ConcurrentHashMap<>();
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public OrderHistoryCache(@Value("${jpashop.order-history-cache.max-weight:100000}") long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public List<OrderQueryDto> get(Long memberId, Function<Long, List<OrderQueryDto>> loader) {
+        synchronized (this) {
+            Entry entry = entries.get(memberId);
+            if (entry != null) {
+                hits.increment();
+                return entry.orders;
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<List<OrderQueryDto>> future = new CompletableFuture<>();
+        CompletableFuture<List<OrderQueryDto>> inFlight = loading.putIfAbsent(memberId, future);
+        if (inFlight != null) {
+            return join(inFlight);  // 다른 요청이 조회 중이면 그 결과를 기다린다.
+        }
+
+        try {
+            loads.increment();
+            List<OrderQueryDto> orders = Collections.unmodifiableList(new ArrayList<>(loader.apply(memberId)));
+            synchronized (this) {
+                if (loading.remove(memberId, future)) {
+                    put(memberId, orders);
+                }
+            }
+            future.complete(orders);
+            return orders;
+        } catch (RuntimeException e) {
+            loading.remove(memberId, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public void invalidate(Long memberId) {
+        synchronized (this) {
+            loading.remove(memberId);
+            Entry removed = entries.remove(memberId);
+            if (removed != null) {
+                weight -= removed.weight;
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (this) {
+            loading.clear();
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderChanged(OrderChangedEvent event) {
+        invalidate(event.getMemberId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMemberChanged(MemberChangedEvent event) {
+        invalidate(event.getMemberId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        if (event.getType() == ItemChangedEvent.Type.UPDATED) {   // 새 상품은 기존 주문 내역과 관계 없다.
+            invalidateAll();
+        }
+    }
+
+    public synchronized Stats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        return new Stats(entries.size(), weight, maxWeight, hitCount, missCount, loads.sum(), evictions.sum(),
+                total == 0 ? 0.0 : (double) hitCount / total);
+    }
+
+    private synchronized void put(Long memberId, List<OrderQueryDto> orders) {
+        long entryWeight = weigh(orders);
+        if (entryWeight > maxWeight) {
+            return; // 혼자서 캐시 전체보다 큰 항목은 넣지 않는다.
+        }
+        Entry old = entries.put(memberId, new Entry(orders, entryWeight));
+        weight += entryWeight - (old == null ? 0 : old.weight);
+
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while (weight > maxWeight && eldest.hasNext()) {
+            Entry evicted = eldest.next().getValue();
+            eldest.remove();
+            weight -= evicted.weight;
+            evictions.increment();
+        }
+    }
+
+    private long weigh(List<OrderQueryDto> orders) {
+        long w = 1;
+        for (OrderQueryDto order : orders) {
+            w += 1 + (order.getOrderItems() == null ? 0 : order.getOrderItems().size());
+        }
+        return w;
+    }
+
+    private List<OrderQueryDto> join(CompletableFuture<List<OrderQueryDto>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class Entry {
+        private final List<OrderQueryDto> orders;
+        private final long weight;
+
+        private Entry(List<OrderQueryDto> orders, long weight) {
+            this.orders = orders;
+            this.weight = weight;
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private int size;
+        private long weight;
+        private long maxWeight;
+        private long hitCount;
+        private long missCount;
+        private long loadCount;
+        private long evictionCount;
+        private double hitRatio;
+    }
+}
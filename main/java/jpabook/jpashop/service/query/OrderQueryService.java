@@ -1,13 +1,19 @@
 package jpabook.jpashop.service.query;
 
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.repository.FetchPlan;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSerach;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static java.util.stream.Collectors.toList;
 
@@ -26,19 +32,94 @@ import static java.util.stream.Collectors.toList;
  * OSIV 옵션을 false로 할 경우 트랜잭션 안에서만 영속성 컨텍스트(db connection)이 관리 되므로
  * Controller에서 LAZY LOADING이 불가능하다.(postman 실행 안됨)
  * 따라서 아래와 같이 @Transactional(readOnly = true)를 담은 메서드로 분리한다.
+ *
+ * 메서드마다 FetchPlan 으로 Order 의 어떤 연관관계까지 로딩해서 넘겨주는지 명시한다.
+ * 반환된 엔티티는 준영속 상태이므로, plan 에 없는 연관관계를 화면/API 에서 접근하면 LazyInitializationException 이 발생한다.
  */
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class OrderQueryService {
 
+    /** 주문 + 회원 + 배송 (xToOne 만) */
+    public static final FetchPlan<Order> ORDER_SUMMARY = FetchPlan.of(Order.class)
+            .join("member", "delivery");
+
+    /** 주문 + 회원 + 배송 + 주문상품 + 상품 */
+    public static final FetchPlan<Order> ORDER_DETAIL = ORDER_SUMMARY
+            .batch(Order::getOrderItems, OrderItem::getItem);
+
     private final OrderRepository orderRepository;
 
     public List<OrderDto> ordersV2_OSIV_false() {
-        List<Order> orders = orderRepository.findAllByString(new OrderSerach());
+        List<Order> orders = findOrdersWithItems(new OrderSerach());
         List<OrderDto> result = orders.stream()
                 .map(OrderDto::new)
                 .collect(toList());
         return result;
     }
+
+    /**
+     * 주문 + 회원 + 배송 - 쿼리 1번
+     */
+    public List<Order> findOrdersWithMemberDelivery(OrderSerach orderSearch) {
+        return ORDER_SUMMARY.load(orderRepository.findAllByString(orderSearch, ORDER_SUMMARY));
+    }
+
+    /**
+     * 주문 + 회원 + 배송 + 주문상품 + 상품 - 쿼리 1 + 1 + 1번 (주문상품, 상품은 IN 쿼리)
+     */
+    public List<Order> findOrdersWithItems(OrderSerach orderSearch) {
+        return ORDER_DETAIL.load(orderRepository.findAllByString(orderSearch, ORDER_DETAIL));
+    }
+
+    /**
+     * 페이징 - 주문 + 회원 + 배송 + 주문상품 + 상품
+     */
+    public List<Order> findOrdersWithItems(int offset, int limit) {
+        return ORDER_DETAIL.load(orderRepository.findAll(offset, limit, ORDER_DETAIL));
+    }
+
+    /**
+     * 주문 1건 - 보관된 주문도 찾는다. (OrderRepository.findOne)
+     * 보관된 주문의 회원, 상품은 프록시이므로 트랜잭션 안에서 DTO 로 바꿔서 넘긴다.
+     */
+    public Optional<OrderDto> findOrder(Long orderId) {
+        return Optional.ofNullable(orderRepository.findOne(orderId)).map(OrderDto::new);
+    }
+
+    /**
+     * 기간 검색 + 페이징 - fromMonth ~ toMonth 의 주문을 최신순으로 limit 건
+     *
+     * 최신 월부터 한 달씩 조회하고 limit 을 채우면 멈춘다. 한 번의 쿼리는 한 달 범위의 order_date 인덱스만 읽는다.
+     * (월 단위 파티션 프루닝과 같은 효과. H2 는 테이블 파티셔닝을 지원하지 않아 인덱스 범위로 나눈다.)
+     *
+     * @param cursorDate 이전 페이지의 nextCursorDate (첫 페이지는 null)
+     */
+    public OrderWindowPage findOrdersInWindow(OrderSerach orderSearch, YearMonth fromMonth, YearMonth toMonth,
+                                              LocalDateTime cursorDate, Long cursorId, int limit) {
+        YearMonth month = toMonth;
+        if (cursorDate != null && YearMonth.from(cursorDate).isBefore(month)) {
+            month = YearMonth.from(cursorDate);     // 이미 읽은 월은 건너뛴다.
+        }
+
+        List<Order> orders = new ArrayList<>();
+        int scannedMonths = 0;
+        for (; !month.isBefore(fromMonth) && orders.size() < limit; month = month.minusMonths(1)) {
+            orders.addAll(orderRepository.findAllInWindow(orderSearch,
+                    month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay(),
+                    cursorDate, cursorId, limit - orders.size(), ORDER_SUMMARY));
+            scannedMonths++;
+        }
+        ORDER_DETAIL.load(orders);
+
+        List<OrderDto> result = orders.stream()
+                .map(OrderDto::new)
+                .collect(toList());
+        if (orders.size() < limit) {
+            return new OrderWindowPage(result, null, null, scannedMonths);
+        }
+        Order last = orders.get(orders.size() - 1);
+        return new OrderWindowPage(result, last.getOrderDate(), last.getId(), scannedMonths);
+    }
 }
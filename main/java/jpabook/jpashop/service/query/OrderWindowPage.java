@@ -0,0 +1,26 @@
+package jpabook.jpashop.service.query;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 기간 검색 결과 한 페이지
+ * 다음 페이지는 nextCursorDate, nextCursorId 를 그대로 넘겨서 조회한다. (null 이면 마지막 페이지)
+ */
+@Getter
+public class OrderWindowPage {
+
+    private final List<OrderDto> orders;
+    private final LocalDateTime nextCursorDate;
+    private final Long nextCursorId;
+    private final int scannedMonths;    // 조회한 월 수 (limit 을 채우면 남은 월은 조회하지 않는다.)
+
+    public OrderWindowPage(List<OrderDto> orders, LocalDateTime nextCursorDate, Long nextCursorId, int scannedMonths) {
+        this.orders = orders;
+        this.nextCursorDate = nextCursorDate;
+        this.nextCursorId = nextCursorId;
+        this.scannedMonths = scannedMonths;
+    }
+}
@@ -0,0 +1,62 @@
+package jpabook.jpashop.service.reference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * (id, 이름) 목록을 이름순으로 정렬해서 들고 있는다.
+ * 이름 앞부분으로 찾기(자동완성)는 정렬된 맵의 범위 조회라 전체 개수와 상관 없이 limit 만큼만 읽는다.
+ */
+class NameIndex {
+
+    private final ConcurrentHashMap<Long, String> namesById = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, ReferenceDto> byName = new ConcurrentSkipListMap<>();
+
+    synchronized void put(Long id, String name) {
+        if (id == null || name == null) {
+            return;
+        }
+        String old = namesById.put(id, name);
+        if (old != null) {
+            byName.remove(key(old, id));
+        }
+        byName.put(key(name, id), new ReferenceDto(id, name));
+    }
+
+    synchronized void clear() {
+        namesById.clear();
+        byName.clear();
+    }
+
+    List<ReferenceDto> first(int limit) {
+        return take(byName.values(), limit);
+    }
+
+    List<ReferenceDto> startsWith(String prefix, int limit) {
+        String from = prefix.toLowerCase(Locale.ROOT);
+        return take(byName.subMap(from, true, from + Character.MAX_VALUE, false).values(), limit);
+    }
+
+    int size() {
+        return namesById.size();
+    }
+
+    private List<ReferenceDto> take(Iterable<ReferenceDto> values, int limit) {
+        List<ReferenceDto> result = new ArrayList<>(Math.min(limit, 100));
+        for (ReferenceDto value : values) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(value);
+        }
+        return result;
+    }
+
+    // 같은 이름이 여러 개일 수 있으므로 id 를 붙여서 키를 만든다.
+    private String key(String name, Long id) {
+        return name.toLowerCase(Locale.ROOT) + '\u0000' + id;
+    }
+}
@@ -0,0 +1,100 @@
+package jpabook.jpashop.service.reference;
+
+import jpabook.jpashop.repository.item.query.ItemQueryDto;
+import jpabook.jpashop.repository.item.query.ItemQueryRepository;
+import jpabook.jpashop.repository.member.query.MemberQueryDto;
+import jpabook.jpashop.repository.member.query.MemberQueryRepository;
+import jpabook.jpashop.service.event.ItemChangedEvent;
+import jpabook.jpashop.service.event.MemberChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 주문 화면의 회원/상품 선택 목록용 참조 데이터 (id, 이름)
+ *
+ * 주문 화면을 열 때마다 회원, 상품 엔티티를 전부 조회하지 않고, 시작할 때 한 번 (id, 이름)만 읽어서 메모리에 들고 있는다.
+ * 이후에는 가입/회원 수정, 상품 등록/수정 이벤트를 받아 바뀐 것만 반영한다.
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class ReferenceDataService {
+
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private final MemberQueryRepository memberQueryRepository;
+    private final ItemQueryRepository itemQueryRepository;
+
+    private final NameIndex members = new NameIndex();
+    private final NameIndex items = new NameIndex();
+
+    public List<ReferenceDto> members(int limit) {
+        return members.first(limit);
+    }
+
+    public List<ReferenceDto> items(int limit) {
+        return items.first(limit);
+    }
+
+    public List<ReferenceDto> searchMembers(String prefix, int limit) {
+        return members.startsWith(prefix, limit);
+    }
+
+    public List<ReferenceDto> searchItems(String prefix, int limit) {
+        return items.startsWith(prefix, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        members.clear();
+        List<MemberQueryDto> memberPage;
+        Long lastId = null;
+        do {
+            memberPage = memberQueryRepository.findMembers(lastId, LOAD_PAGE_SIZE);
+            memberPage.forEach(m -> members.put(m.getId(), m.getName()));
+            lastId = memberPage.isEmpty() ? lastId : memberPage.get(memberPage.size() - 1).getId();
+        } while (memberPage.size() == LOAD_PAGE_SIZE);
+
+        items.clear();
+        List<ItemQueryDto> itemPage;
+        int offset = 0;
+        do {
+            itemPage = itemQueryRepository.findItemDtos(offset, LOAD_PAGE_SIZE);
+            itemPage.forEach(i -> items.put(i.getId(), i.getName()));
+            offset += itemPage.size();
+        } while (itemPage.size() == LOAD_PAGE_SIZE);
+
+        log.info("reference data loaded. members={}, items={}", members.size(), items.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void onMemberChanged(MemberChangedEvent event) {
+        members.put(event.getMemberId(), event.getName());
+    }
+
+    /**
+     * 상품 이벤트에는 id 만 있으므로 커밋된 이름을 id in 쿼리로 다시 읽는다.
+     * 커밋이 끝난 뒤(AFTER_COMMIT)에는 기존 트랜잭션에 참여할 수 없으므로 새 트랜잭션으로 조회한다.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onItemChanged(ItemChangedEvent event) {
+        List<Long> itemIds = new ArrayList<>(event.getItemIds());
+        for (int from = 0; from < itemIds.size(); from += LOAD_PAGE_SIZE) {
+            List<Long> chunk = itemIds.subList(from, Math.min(from + LOAD_PAGE_SIZE, itemIds.size()));
+            itemQueryRepository.findItemDtosByIds(chunk)
+                    .forEach(i -> items.put(i.getId(), i.getName()));
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package jpabook.jpashop.service.reference;
+
+import lombok.Getter;
+
+/**
+ * 드롭다운, 자동완성에 쓰는 (id, 이름) 한 쌍
+ */
+@Getter
+public class ReferenceDto {
+
+    private final Long id;
+    private final String name;
+
+    public ReferenceDto(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
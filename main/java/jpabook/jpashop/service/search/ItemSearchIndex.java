@@ -0,0 +1,161 @@
+package jpabook.jpashop.service.search;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 상품 검색용 역색인 (in-process)
+ *
+ * 색인 대상 : Item.name, Book.author, Book.isbn, Album.artist, Movie.director
+ * - 토큰 -> 상품 id 목록을 정렬된 맵(ConcurrentSkipListMap)에 보관하므로 접두어 검색은 subMap 범위 조회 한 번이다.
+ * - isbn 은 하이픈/공백을 제거한 값으로 별도 맵에 보관하여 정확히 일치하는 상품을 O(1)로 찾는다.
+ *
+ * 색인은 메모리에만 있으므로 애플리케이션 시작 시 DB에서 다시 만든다. (ItemService.rebuildSearchIndex)
+ * 쓰기는 synchronized 로 직렬화하고, 읽기는 락 없이 동시 자료구조를 그대로 읽는다.
+ */
+@Component
+public class ItemSearchIndex {
+
+    private final ConcurrentSkipListMap<String, Set<Long>> postings = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Long> isbnIndex = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, IndexedItem> indexedItems = new ConcurrentHashMap<>();
+
+    /**
+     * 상품을 색인한다. 이미 색인된 상품이면 이전 토큰을 지우고 다시 색인한다.
+     */
+    public synchronized void index(Item item) {
+        if (item.getId() == null) {
+            return;
+        }
+        remove(item.getId());
+
+        Set<String> tokens = new HashSet<>(tokenize(item.getName()));
+        String isbn = null;
+        if (item instanceof Book) {
+            Book book = (Book) item;
+            tokens.addAll(tokenize(book.getAuthor()));
+            isbn = normalizeIsbn(book.getIsbn());
+        } else if (item instanceof Album) {
+            tokens.addAll(tokenize(((Album) item).getArtist()));
+        } else if (item instanceof Movie) {
+            tokens.addAll(tokenize(((Movie) item).getDirector()));
+        }
+        if (isbn != null) {
+            tokens.add(isbn);
+            isbnIndex.put(isbn, item.getId());
+        }
+
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new ConcurrentSkipListSet<>()).add(item.getId());
+        }
+        indexedItems.put(item.getId(), new IndexedItem(tokens, isbn));
+    }
+
+    public synchronized void remove(Long itemId) {
+        IndexedItem old = indexedItems.remove(itemId);
+        if (old == null) {
+            return;
+        }
+        for (String token : old.tokens) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null) {
+                ids.remove(itemId);
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+        if (old.isbn != null) {
+            isbnIndex.remove(old.isbn, itemId);
+        }
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        isbnIndex.clear();
+        indexedItems.clear();
+    }
+
+    /**
+     * 접두어 검색. 검색어가 여러 단어면 모든 단어를 만족하는 상품만 반환한다. (AND)
+     * ex. "jpa bo" -> "jpa"로 시작하는 토큰과 "bo"로 시작하는 토큰을 모두 가진 상품
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Long> result = null;
+        for (String term : terms) {
+            Set<Long> matched = prefixMatch(term);
+            if (result == null) {
+                result = matched;
+            } else {
+                result.retainAll(matched);
+            }
+            if (result.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(result);
+        return ids.size() > limit ? ids.subList(0, limit) : ids;
+    }
+
+    public Optional<Long> findByIsbn(String isbn) {
+        String normalized = normalizeIsbn(isbn);
+        return normalized == null ? Optional.empty() : Optional.ofNullable(isbnIndex.get(normalized));
+    }
+
+    public int size() {
+        return indexedItems.size();
+    }
+
+    private Set<Long> prefixMatch(String prefix) {
+        Set<Long> ids = new TreeSet<>();
+        postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .values()
+                .forEach(ids::addAll);
+        return ids;
+    }
+
+    static List<String> tokenize(String text) {
+        if (!StringUtils.hasText(text)) {
+            return Collections.emptyList();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    static String normalizeIsbn(String isbn) {
+        if (!StringUtils.hasText(isbn)) {
+            return null;
+        }
+        return isbn.replaceAll("[\\s-]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static class IndexedItem {
+        private final Set<String> tokens;
+        private final String isbn;
+
+        private IndexedItem(Set<String> tokens, String isbn) {
+            this.tokens = tokens;
+            this.isbn = isbn;
+        }
+    }
+}
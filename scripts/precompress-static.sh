@@ -0,0 +1,23 @@
+#!/bin/sh
+# 정적 리소스(css, js) 미리 압축 - 패키징(bootJar) 전에 실행하는 빌드 단계
+# EncodedResourceResolver 가 Accept-Encoding 에 맞춰 .br / .gz 파일을 Content-Encoding 과 함께 내려준다.
+# 압축 파일은 빌드 결과물이므로 커밋하지 않는다. (.gitignore) 원본이 바뀌면 다시 만들어지므로 어긋나지 않는다.
+# 압축 파일이 없으면 server.compression 이 요청마다 압축한다.
+#
+# 템플릿이 참조하는 파일만 압축한다. (fragments/header.html) 참조를 추가하면 ASSETS 에도 추가한다.
+# brotli 명령이 없으면 .br 은 만들지 않는다.
+#
+# 실행 : sh scripts/precompress-static.sh
+set -e
+
+STATIC_DIR="$(dirname "$0")/../main/resources/static"
+ASSETS="css/bootstrap.min.css css/jumbotron-narrow.css"
+
+for asset in $ASSETS; do
+    file="$STATIC_DIR/$asset"
+    gzip -9 -n -c "$file" > "$file.gz"
+    if command -v brotli > /dev/null 2>&1; then
+        brotli -q 11 -f -o "$file.br" "$file"
+    fi
+    printf '%s %d -> gzip %d\n' "$file" "$(wc -c < "$file")" "$(wc -c < "$file.gz")"
+done
@@ -0,0 +1,133 @@
+package jpabook.jpashop.admission;
+
+import jpabook.jpashop.monitor.ConnectionProfiler;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static jpabook.jpashop.admission.EndpointClass.BATCH;
+import static jpabook.jpashop.admission.EndpointClass.FULL_SCAN;
+import static jpabook.jpashop.admission.EndpointClass.PAGED;
+import static org.junit.Assert.*;
+
+public class AdmissionInterceptorTest {
+
+    ConnectionProfiler connectionProfiler = new ConnectionProfiler();
+
+    @Test
+    public void 토큰이_없으면_429와_Retry_After를_응답한다() throws Exception {
+        // given - FULL_SCAN 은 최대 20 토큰
+        AdmissionInterceptor interceptor = interceptor(rule("GET", "/api/full", new AdmissionControl.Rule(FULL_SCAN, 10)));
+        assertTrue(handle(interceptor, get("/api/full")));
+        assertTrue(handle(interceptor, get("/api/full")));
+
+        // when
+        MockHttpServletRequest request = get("/api/full");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean admitted = interceptor.preHandle(request, response, null);
+
+        // then
+        assertFalse(admitted);
+        assertEquals(429, response.getStatus());
+        assertTrue("토큰 10개가 다시 차는 시간(2초) 이내", Long.parseLong(response.getHeader(HttpHeaders.RETRY_AFTER)) <= 2);
+        assertTrue(response.getContentAsString().contains("RATE"));
+    }
+
+    @Test
+    public void 동시_실행_상한을_넘으면_거절하고_끝나면_다시_받는다() throws Exception {
+        // given - FULL_SCAN 은 동시에 2개
+        AdmissionInterceptor interceptor = interceptor(rule("GET", "/api/full", new AdmissionControl.Rule(FULL_SCAN, 1)));
+        MockHttpServletRequest first = get("/api/full");
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+        assertTrue(interceptor.preHandle(get("/api/full"), new MockHttpServletResponse(), null));
+
+        // when
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        boolean admitted = interceptor.preHandle(get("/api/full"), rejected, null);
+
+        // then
+        assertFalse(admitted);
+        assertEquals(429, rejected.getStatus());
+        assertTrue(rejected.getContentAsString().contains("CONCURRENCY"));
+
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, null);
+        assertTrue("하나가 끝났으므로 다시 받는다.", interceptor.preHandle(get("/api/full"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    public void 커넥션_대기가_길면_모두_거절한다() throws Exception {
+        // given - 최근 커넥션 대기 10초
+        AdmissionInterceptor interceptor = interceptor(rule("GET", "/api/paged", new AdmissionControl.Rule(PAGED, 1)));
+        connectionProfiler.record("test", TimeUnit.SECONDS.toNanos(10), 0, 0, 0);
+
+        // when
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean admitted = interceptor.preHandle(get("/api/paged"), response, null);
+
+        // then
+        assertFalse(admitted);
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.getContentAsString().contains("POOL_WAIT"));
+    }
+
+    @Test
+    public void POST_작업도_규칙이_있으면_확인한다() throws Exception {
+        // given - BATCH 는 동시에 1개
+        AdmissionInterceptor interceptor = interceptor(rule("POST", "/api/v1/orders/archive", new AdmissionControl.Rule(BATCH, 1)));
+        assertTrue(interceptor.preHandle(request("POST", "/api/v1/orders/archive"), new MockHttpServletResponse(), null));
+
+        // when
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean admitted = interceptor.preHandle(request("POST", "/api/v1/orders/archive"), response, null);
+
+        // then
+        assertFalse(admitted);
+        assertEquals(429, response.getStatus());
+        assertTrue("같은 경로라도 규칙이 없는 메서드는 확인하지 않는다.",
+                interceptor.preHandle(get("/api/v1/orders/archive"), new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    public void limit_에_비례해서_비용을_쓴다() throws Exception {
+        AdmissionControl.Rule rule = new AdmissionControl.Rule(PAGED, 2, 100);
+
+        assertEquals("limit 이 없으면 기본 비용", 2, rule.costFor(null));
+        assertEquals(2, rule.costFor("1"));
+        assertEquals(20, rule.costFor("1000"));
+        assertEquals("burst 를 넘지 않는다.", PAGED.getBurst(), rule.costFor("1000000"));
+    }
+
+    private AdmissionInterceptor interceptor(Map<String, AdmissionControl.Rule> rules) {
+        return new AdmissionInterceptor(new AdmissionControl(rules, connectionProfiler, 50));
+    }
+
+    private Map<String, AdmissionControl.Rule> rule(String method, String pattern, AdmissionControl.Rule rule) {
+        Map<String, AdmissionControl.Rule> rules = new HashMap<>();
+        rules.put(AdmissionControl.key(method, pattern), rule);
+        return rules;
+    }
+
+    private boolean handle(AdmissionInterceptor interceptor, MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean admitted = interceptor.preHandle(request, response, null);
+        interceptor.afterCompletion(request, response, null, null);
+        return admitted;
+    }
+
+    private MockHttpServletRequest get(String pattern) {
+        return request("GET", pattern);
+    }
+
+    private MockHttpServletRequest request(String method, String pattern) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, pattern);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+        return request;
+    }
+}
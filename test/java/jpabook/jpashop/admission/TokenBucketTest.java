@@ -0,0 +1,33 @@
+package jpabook.jpashop.admission;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketTest {
+
+    AtomicLong now = new AtomicLong();
+
+    @Test
+    public void burst까지_꺼내고_시간이_지나면_충전된다() throws Exception {
+        // given - 초당 5개, 최대 20개
+        TokenBucket bucket = new TokenBucket(5, 20, now::get);
+
+        // when, then
+        assertTrue(bucket.tryAcquire(10));
+        assertTrue(bucket.tryAcquire(10));
+        assertFalse("토큰이 없다.", bucket.tryAcquire(1));
+        assertEquals(TimeUnit.SECONDS.toNanos(2), bucket.nanosUntil(10));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));    // 10개 충전
+        assertEquals(10.0, bucket.available(), 0.001);
+        assertTrue(bucket.tryAcquire(10));
+        assertFalse(bucket.tryAcquire(1));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60));   // 오래 지나도 burst 까지만 쌓인다.
+        assertEquals(20.0, bucket.available(), 0.001);
+    }
+}
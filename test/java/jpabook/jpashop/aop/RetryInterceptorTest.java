@@ -0,0 +1,54 @@
+package jpabook.jpashop.aop;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import javax.persistence.OptimisticLockException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class RetryInterceptorTest {
+
+    @Test
+    public void 재시도할_때마다_안쪽_인터셉터를_다시_거친다() throws Exception {
+        // given - 안쪽 인터셉터는 트랜잭션 인터셉터 자리
+        AtomicInteger transactions = new AtomicInteger();
+        MethodInterceptor transactionInterceptor = invocation -> {
+            transactions.incrementAndGet();
+            return invocation.proceed();
+        };
+        ProxyFactory proxyFactory = new ProxyFactory(new ConflictOnce());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new RetryInterceptor());
+        proxyFactory.addAdvice(transactionInterceptor);
+        ConflictOnce proxy = (ConflictOnce) proxyFactory.getProxy();
+
+        // when
+        String result = proxy.run();
+        int transactionCount = transactions.get();
+
+        // then
+        assertEquals("ok", result);
+        assertEquals("두 번째 실행도 트랜잭션 인터셉터를 거쳐야 한다.", 2, transactionCount);
+        assertEquals("대상 메서드는 두 번 실행된다.", 2, proxy.getCalls());
+    }
+
+    public static class ConflictOnce {
+
+        private int calls;
+
+        @Retry(backoffMillis = 0)
+        public String run() {
+            if (++calls == 1) {
+                throw new OptimisticLockException("conflict");
+            }
+            return "ok";
+        }
+
+        public int getCalls() {
+            return calls;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class OrderBinaryCodecTest {
+
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .modulesToInstall(new OrderJsonModule())
+            .build();
+
+    @Test
+    public void 인코딩_디코딩() throws Exception {
+        // given
+        List<OrderQueryDto> orders = createOrders(100);
+        orders.add(new OrderQueryDto(null, null, null, null, null)); // null 필드, orderItems 없음
+
+        // when
+        List<OrderQueryDto> decoded = OrderBinaryCodec.read(new ByteArrayInputStream(encode(orders)));
+
+        // then
+        assertEquals(objectMapper.writeValueAsString(orders), objectMapper.writeValueAsString(decoded));
+        assertEquals("주문상품의 orderId 는 주문 id 로 채운다.",
+                orders.get(0).getOrderId(), decoded.get(0).getOrderItems().get(0).getOrderId());
+    }
+
+    @Test
+    public void JSON보다_작다() throws Exception {
+        // given
+        List<OrderQueryDto> orders = createOrders(1000);
+
+        // when
+        int jsonSize = objectMapper.writeValueAsBytes(orders).length;
+        int binarySize = encode(orders).length;
+
+        // then
+        assertTrue("json=" + jsonSize + " bytes, binary=" + binarySize + " bytes", binarySize * 3 < jsonSize);
+    }
+
+    @Test
+    public void 바이너리를_명시한_요청만_바이너리로_협상된다() throws Exception {
+        assertFalse(OrderBinaryHttpMessageConverter.isSelected(null));
+        assertFalse(OrderBinaryHttpMessageConverter.isSelected("*/*"));
+        assertFalse(OrderBinaryHttpMessageConverter.isSelected("application/json"));
+        assertFalse(OrderBinaryHttpMessageConverter.isSelected("application/x-jpashop-orders;q=0.5, application/json"));
+        assertTrue(OrderBinaryHttpMessageConverter.isSelected("application/x-jpashop-orders"));
+        assertTrue(OrderBinaryHttpMessageConverter.isSelected("application/json;q=0.5, application/x-jpashop-orders"));
+    }
+
+    /**
+     * 주문 10,000건 직렬화 - JSON(OrderJsonModule) vs 바이너리
+     * 실행 : JVM 옵션 -Dbenchmark=true 를 주고 이 테스트를 실행한다. (옵션이 없으면 건너뛴다.)
+     */
+    @Test
+    public void 벤치마크_주문10000건_직렬화() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+
+        // given
+        List<OrderQueryDto> orders = createOrders(10_000);
+        for (int i = 0; i < 20; i++) {  // 워밍업
+            objectMapper.writeValueAsBytes(orders);
+            encode(orders);
+        }
+
+        // when
+        int iterations = 50;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            objectMapper.writeValueAsBytes(orders);
+        }
+        long jsonNanos = (System.nanoTime() - start) / iterations;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            encode(orders);
+        }
+        long binaryNanos = (System.nanoTime() - start) / iterations;
+
+        // then
+        System.out.printf("json=%.2fms/op %d bytes, binary=%.2fms/op %d bytes%n",
+                jsonNanos / 1_000_000.0, objectMapper.writeValueAsBytes(orders).length,
+                binaryNanos / 1_000_000.0, encode(orders).length);
+    }
+
+    private byte[] encode(List<OrderQueryDto> orders) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OrderBinaryCodec.write(orders, out);
+        return out.toByteArray();
+    }
+
+    private List<OrderQueryDto> createOrders(int count) {
+        LocalDateTime orderDate = LocalDateTime.of(2026, 10, 19, 12, 30, 15, 123_000_000); // 밀리초까지만
+        List<OrderQueryDto> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long orderId = 1000 + i * 2;
+            orders.add(new OrderQueryDto(orderId, "회원" + (i % 50), orderDate.plusSeconds(i * 7L),
+                    i % 3 == 0 ? OrderStatus.CANCEL : OrderStatus.ORDER,
+                    new Address("서울", "강가", "123-123"),
+                    Arrays.asList(
+                            new OrderItemQueryDto(orderId, "JPA1 BOOK", 10000, 1),
+                            new OrderItemQueryDto(orderId, "JPA2 BOOK", 20000, 2))));
+        }
+        return orders;
+    }
+}
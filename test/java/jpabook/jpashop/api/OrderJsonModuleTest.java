@@ -0,0 +1,147 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+import static org.junit.Assert.*;
+
+public class OrderJsonModuleTest {
+
+    // 스프링 부트 기본 ObjectMapper 와 같은 설정 (JavaTimeModule, 날짜를 문자열로)
+    ObjectMapper defaultMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    ObjectMapper fastMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .modulesToInstall(new OrderJsonModule())
+            .build();
+
+    @Test
+    public void 기본_직렬화와_같은_JSON() throws Exception {
+        // given
+        List<OrderQueryDto> orders = createOrders(3);
+        orders.add(new OrderQueryDto(null, null, null, null, null)); // null 필드, orderItems 없음
+
+        // when
+        String expected = defaultMapper.writeValueAsString(orders);
+        String actual = fastMapper.writeValueAsString(orders);
+
+        // then
+        assertEquals(expected, actual);
+        assertFalse("@JsonIgnore 된 orderId 는 주문상품에 나오지 않는다.", actual.contains("\"orderItems\":[{\"orderId\""));
+    }
+
+    @Test
+    public void 엔티티로_만든_주문DTO도_기본_직렬화와_같은_JSON() throws Exception {
+        // given
+        List<Order> orders = createOrderEntities(3);
+
+        // when then
+        assertSameJson(orders, jpabook.jpashop.service.query.OrderDto::new);
+        assertSameJson(orders, OrderApiController.OrderDto::new);
+        assertSameJson(orders, OrderSimpleApiController.SimpleOrderDto::new);
+    }
+
+    private <T> void assertSameJson(List<Order> orders, Function<Order, T> toDto) throws Exception {
+        List<T> dtos = orders.stream().map(toDto).collect(toList());
+        assertArrayEquals(defaultMapper.writeValueAsBytes(dtos), fastMapper.writeValueAsBytes(dtos));
+    }
+
+    /**
+     * 주문 10,000건 (주문상품 2개씩) 직렬화 - 기본 BeanSerializer vs OrderJsonModule
+     * 실행 : JVM 옵션 -Dbenchmark=true 를 주고 이 테스트를 실행한다. (옵션이 없으면 건너뛴다.)
+     */
+    @Test
+    public void 벤치마크_주문10000건_직렬화() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+
+        // given
+        List<OrderQueryDto> orders = createOrders(10_000);
+        int warmUp = 20;
+        int iterations = 50;
+
+        // when
+        long defaultNanos = measure(defaultMapper, orders, warmUp, iterations);
+        long fastNanos = measure(fastMapper, orders, warmUp, iterations);
+
+        // then
+        assertEquals(defaultMapper.writeValueAsString(orders), fastMapper.writeValueAsString(orders));
+        System.out.printf("default=%.2fms/op, OrderJsonModule=%.2fms/op (orders=%d, bytes=%d)%n",
+                defaultNanos / 1_000_000.0, fastNanos / 1_000_000.0,
+                orders.size(), fastMapper.writeValueAsBytes(orders).length);
+    }
+
+    private long measure(ObjectMapper mapper, List<OrderQueryDto> orders, int warmUp, int iterations) throws Exception {
+        long bytes = 0;
+        for (int i = 0; i < warmUp; i++) {
+            bytes += mapper.writeValueAsBytes(orders).length;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes += mapper.writeValueAsBytes(orders).length;
+        }
+        long elapsed = System.nanoTime() - start;
+        assertTrue(bytes > 0);
+        return elapsed / iterations;
+    }
+
+    private List<OrderQueryDto> createOrders(int count) {
+        LocalDateTime orderDate = LocalDateTime.of(2026, 10, 19, 12, 30, 15, 123_456_000);
+        List<OrderQueryDto> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long orderId = i + 1;
+            orders.add(new OrderQueryDto(orderId, "회원" + i, orderDate.plusSeconds(i),
+                    i % 3 == 0 ? OrderStatus.CANCEL : OrderStatus.ORDER,
+                    new Address("서울", "강가 \"" + i + "\"", "123-123"),
+                    Arrays.asList(
+                            new OrderItemQueryDto(orderId, "JPA1 BOOK", 10000, 1),
+                            new OrderItemQueryDto(orderId, "JPA2 BOOK", 20000, 2))));
+        }
+        return orders;
+    }
+
+    private List<Order> createOrderEntities(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Member member = new Member();
+            member.setName("회원" + i);
+            Delivery delivery = new Delivery();
+            delivery.setAddress(i == 0 ? null : new Address("서울", "강가 \"" + i + "\"", "123-123"));
+            Order order = Order.createOrder(member, delivery,
+                    OrderItem.createOrderItem(createBook("JPA1 BOOK"), 10000, 1),
+                    OrderItem.createOrderItem(createBook("JPA2 BOOK"), 20000, 2));
+            order.setId(i + 1L);
+            order.setOrderDate(LocalDateTime.of(2026, 10, 19, 12, 30, 15, 123_456_000).plusSeconds(i));
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private Book createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setStockQuantity(10);
+        return book;
+    }
+}
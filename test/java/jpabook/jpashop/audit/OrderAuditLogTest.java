@@ -0,0 +1,126 @@
+package jpabook.jpashop.audit;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class OrderAuditLogTest {
+
+    @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void 로그를_다시_읽어서_주문상태를_만든다() throws Exception {
+        // given - 세그먼트 하나에 레코드 3건씩 (세그먼트 넘김 확인)
+        Path dir = folder.getRoot().toPath();
+        int segmentSize = OrderAuditRecord.SIZE * 3;
+        try (OrderAuditLog log = new OrderAuditLog(dir, segmentSize, 10)) {
+            log.append(new OrderAuditRecord(OrderAuditRecord.Type.CREATED, 1000L, 1L, 10L, 0, 0));
+            log.append(new OrderAuditRecord(OrderAuditRecord.Type.ITEM_ADDED, 1000L, 1L, 100L, 10000, 2));
+            log.append(new OrderAuditRecord(OrderAuditRecord.Type.CREATED, 2000L, 2L, 20L, 0, 0));
+            log.append(new OrderAuditRecord(OrderAuditRecord.Type.ITEM_ADDED, 2000L, 2L, 200L, 5000, 1));
+            assertEquals("sync 하면 추가한 레코드가 모두 force 된다.", 4, log.sync());
+        }
+        // 다시 열어서 이어 쓴다.
+        try (OrderAuditLog log = new OrderAuditLog(dir, segmentSize, 10)) {
+            log.append(OrderAuditRecord.canceled(1L, 3000L));
+            log.append(OrderAuditRecord.deliveryCompleted(2L, 4000L));
+        }
+
+        // when
+        Map<Long, OrderAuditReplay.OrderState> orders = OrderAuditReplay.replay(dir);
+
+        // then
+        assertEquals(2, countSegments(dir));
+        assertEquals(2, orders.size());
+        OrderAuditReplay.OrderState canceled = orders.get(1L);
+        assertEquals(Long.valueOf(10L), canceled.getMemberId());
+        assertEquals(OrderStatus.CANCEL, canceled.getStatus());
+        assertEquals(20000, canceled.getTotalPrice());
+        OrderAuditReplay.OrderState delivered = orders.get(2L);
+        assertEquals(OrderStatus.ORDER, delivered.getStatus());
+        assertEquals(DeliveryStatus.COMP, delivered.getDeliveryStatus());
+        assertEquals(Long.valueOf(200L), delivered.getItems().get(0).getItemId());
+    }
+
+    @Test
+    public void 쓰다만_레코드는_버리고_그자리부터_이어쓴다() throws Exception {
+        // given
+        Path dir = folder.getRoot().toPath();
+        try (OrderAuditLog log = new OrderAuditLog(dir, 4096, 10)) {
+            log.append(new OrderAuditRecord(OrderAuditRecord.Type.CREATED, 1000L, 1L, 10L, 0, 0));
+            log.append(new OrderAuditRecord(OrderAuditRecord.Type.CREATED, 2000L, 2L, 20L, 0, 0));
+        }
+        // 두 번째 레코드의 orderId 를 깨뜨린다. (CRC 불일치)
+        try (RandomAccessFile file = new RandomAccessFile(dir.resolve("orders-00000001.log").toFile(), "rw")) {
+            file.seek(OrderAuditRecord.SIZE + 9);
+            file.writeLong(99L);
+        }
+
+        // when
+        try (OrderAuditLog log = new OrderAuditLog(dir, 4096, 10)) {
+            log.append(new OrderAuditRecord(OrderAuditRecord.Type.CREATED, 3000L, 3L, 30L, 0, 0));
+        }
+
+        // then
+        Map<Long, OrderAuditReplay.OrderState> orders = OrderAuditReplay.replay(dir);
+        assertEquals(2, orders.size());
+        assertTrue(orders.containsKey(1L));
+        assertFalse(orders.containsKey(99L));
+        assertTrue("깨진 레코드 자리에 이어 쓴다.", orders.containsKey(3L));
+    }
+
+    @Test
+    public void 다른_곳에서_쓰고_있는_디렉토리는_열지_않는다() throws Exception {
+        // given
+        Path dir = folder.getRoot().toPath();
+        try (OrderAuditLog log = new OrderAuditLog(dir, 4096, 10)) {
+
+            // when
+            try {
+                new OrderAuditLog(dir, 4096, 10);
+                fail("락을 잡지 못하면 예외가 발생해야 한다.");
+            } catch (IllegalStateException e) {
+                // 예상한 예외
+            }
+        }
+
+        // then - 닫으면 락이 풀려서 다시 열 수 있다.
+        new OrderAuditLog(dir, 4096, 10).close();
+    }
+
+    @Test
+    public void 취소가_생성보다_먼저_기록되어도_취소상태가_남는다() throws Exception {
+        // given - 주문 커밋 직후 다른 요청의 취소 레코드가 먼저 추가된 경우
+        Path dir = folder.getRoot().toPath();
+        try (OrderAuditLog log = new OrderAuditLog(dir, 4096, 10)) {
+            log.append(OrderAuditRecord.canceled(1L, 2000L));
+            log.append(OrderAuditRecord.deliveryCompleted(1L, 3000L));
+            log.append(new OrderAuditRecord(OrderAuditRecord.Type.CREATED, 1000L, 1L, 10L, 0, 0));
+        }
+
+        // when
+        OrderAuditReplay.OrderState order = OrderAuditReplay.replay(dir).get(1L);
+
+        // then
+        assertEquals(OrderStatus.CANCEL, order.getStatus());
+        assertEquals(DeliveryStatus.COMP, order.getDeliveryStatus());
+        assertEquals(Long.valueOf(10L), order.getMemberId());
+        assertTrue("마지막 변경 시각은 가장 늦은 레코드", order.getLastModifiedDate().isAfter(order.getOrderDate()));
+    }
+
+    private long countSegments(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package jpabook.jpashop.monitor;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.sql.DataSource;
+
+import static org.junit.Assert.*;
+
+/**
+ * 트랜잭션이 커밋되고 커넥션이 반납되어야 기록되므로 클래스에 @Transactional 을 걸지 않는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ConnectionProfilerTest {
+
+    @Autowired ConnectionProfiler connectionProfiler;
+    @Autowired MemberService memberService;
+    @Autowired DataSource dataSource;
+
+    @Test
+    public void 트랜잭션_메서드별_커넥션_사용시간_기록() throws Exception {
+        // given
+        assertTrue(dataSource instanceof ProfilingDataSource);
+        connectionProfiler.reset();
+
+        // when
+        Member member = new Member();
+        member.setName("profiler-" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+
+        // then
+        ConnectionProfiler.MethodSnapshot join = connectionProfiler.snapshot().stream()
+                .filter(s -> s.getMethod().equals("jpabook.jpashop.service.MemberService.join"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("MemberService.join 이 기록되지 않았다."));
+        assertEquals(1, join.getHold().getCount());
+        assertTrue(join.getStatementsPerConnection() >= 1);
+        assertTrue("sql 시간은 hold 시간을 넘을 수 없다.", join.getSql().getMaxMillis() <= join.getHold().getMaxMillis());
+    }
+
+    @Test
+    public void 히스토그램_백분위() throws Exception {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        // when - 1ms 99건, 100ms 1건
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000_000);
+        }
+        histogram.record(100_000_000);
+
+        // then - 구간 상한으로 근사 (1000µs -> 1024µs, 100000µs -> 131072µs)
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.getCount());
+        assertEquals(1.024, snapshot.getP50Millis(), 0.0001);
+        assertEquals(1.024, snapshot.getP99Millis(), 0.0001);
+        assertEquals(100.0, snapshot.getMaxMillis(), 0.0001);
+    }
+}
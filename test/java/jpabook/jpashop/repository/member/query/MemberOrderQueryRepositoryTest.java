@@ -0,0 +1,129 @@
+package jpabook.jpashop.repository.member.query;
+
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class MemberOrderQueryRepositoryTest {
+
+    @Autowired MemberOrderQueryRepository memberOrderQueryRepository;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 회원별_최근_주문_N건() throws Exception {
+        // given
+        Book book = createBook(1000);
+        Member member1 = createMember("회원별주문1");
+        Member member2 = createMember("회원별주문2");
+        Long lastOrderId = null;
+        for (int i = 0; i < 5; i++) {
+            lastOrderId = createOrder(member1, book, i + 1).getId();
+        }
+        createOrder(member2, book, 1);
+        em.flush();
+        em.clear();
+
+        // when
+        List<MemberOrdersQueryDto> result = memberOrderQueryRepository.findMemberOrders(member1.getId() - 1, 2, 3);
+
+        // then
+        assertEquals(2, result.size());
+        MemberOrdersQueryDto first = result.get(0);
+        assertEquals(member1.getId(), first.getMemberId());
+        assertEquals("회원마다 최근 주문 3건만 조회한다.", 3, first.getOrders().size());
+        assertEquals("최근 주문이 먼저 온다.", lastOrderId, first.getOrders().get(0).getOrderId());
+        assertEquals(5, first.getOrders().get(0).getOrderItems().get(0).getCount());
+        assertEquals(1, result.get(1).getOrders().size());
+    }
+
+    /**
+     * 회원 100명 x 주문 1000건
+     * 실행 : JVM 옵션 -Dbenchmark=true 를 주고 이 테스트를 실행한다. (옵션이 없으면 건너뛴다.)
+     */
+    @Test
+    public void 벤치마크_회원100명_주문1000건() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+
+        // given
+        int members = 100;
+        int ordersPerMember = 1000;
+        Book book = createBook(members * ordersPerMember);
+        Long firstMemberId = null;
+        for (int m = 0; m < members; m++) {
+            Member member = createMember("벤치마크-" + m);
+            if (firstMemberId == null) {
+                firstMemberId = member.getId();
+            }
+            for (int o = 0; o < ordersPerMember; o++) {
+                createOrder(member, book, 1);
+            }
+            em.flush();
+            em.clear();
+            book = em.find(Book.class, book.getId());
+        }
+
+        // when - 지연 로딩으로 컬렉션을 순회 (N + 1)
+        long start = System.nanoTime();
+        int lazyCount = 0;
+        for (Member member : em.createQuery("select m from Member m where m.id >= :id order by m.id", Member.class)
+                .setParameter("id", firstMemberId)
+                .getResultList()) {
+            for (Order order : member.getOrders()) {
+                lazyCount += order.getOrderItems().size();
+            }
+        }
+        long lazyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        em.clear();
+
+        // when - in 쿼리 3번 (회원마다 최근 1000건)
+        start = System.nanoTime();
+        List<MemberOrdersQueryDto> result = memberOrderQueryRepository.findMemberOrders(firstMemberId - 1, members, ordersPerMember);
+        long batchedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // then
+        int batchedCount = result.stream().mapToInt(m -> m.getOrders().size()).sum();
+        assertEquals(members * ordersPerMember, batchedCount);
+        assertEquals(lazyCount, batchedCount);
+        System.out.printf("lazy collection=%dms, batched in-query=%dms (orders=%d)%n", lazyMillis, batchedMillis, batchedCount);
+    }
+
+    private Order createOrder(Member member, Book book, int count) {
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, book.getPrice(), count));
+        em.persist(order);
+        return order;
+    }
+
+    private Book createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("회원별 주문 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
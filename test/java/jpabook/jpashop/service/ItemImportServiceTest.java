@@ -0,0 +1,80 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class ItemImportServiceTest {
+
+    @Autowired ItemImportService itemImportService;
+    @Autowired ItemRepository itemRepository;
+    @Autowired EntityManager em;
+
+    @Test
+    public void CSV_등록과_수정() throws Exception {
+        // given
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        book.setIsbn("isbn-1");
+        em.persist(book);
+
+        String csv = "isbn,name,price,stockQuantity,author\n" +
+                "isbn-1,\"시골 JPA, 개정판\",12000,20,kim\n" +
+                "isbn-2,스프링,20000,5,lee\n" +
+                ",이름만 있는 책,1000,1,park\n" +
+                "isbn-3,가격오류,abc,1,choi\n";
+
+        // when
+        ItemImportResult result = itemImportService.importCsv(toStream(csv));
+
+        // then
+        assertEquals("새 isbn 은 등록된다.", 1, result.getInserted());
+        assertEquals("같은 isbn 은 수정된다.", 1, result.getUpdated());
+        assertEquals("isbn 이 없는 줄, 가격 형식 오류 줄은 실패로 센다.", 2, result.getFailed());
+
+        List<Book> books = itemRepository.findBooksByIsbns(Arrays.asList("isbn-1", "isbn-2"));
+        Book updated = books.stream().filter(b -> b.getIsbn().equals("isbn-1")).findFirst().get();
+        assertEquals("시골 JPA, 개정판", updated.getName());
+        assertEquals(12000, updated.getPrice());
+        assertEquals(2, books.size());
+    }
+
+    @Test
+    public void NDJSON_등록() throws Exception {
+        // given
+        String ndjson = "{\"name\":\"JPA\",\"price\":10000,\"stockQuantity\":10,\"author\":\"kim\",\"isbn\":\"isbn-10\"}\n" +
+                "\n" +
+                "{\"name\":\"JPA\",\"price\":11000,\"stockQuantity\":10,\"author\":\"kim\",\"isbn\":\"isbn-10\"}\n";
+
+        // when
+        ItemImportResult result = itemImportService.importNdjson(toStream(ndjson));
+
+        // then
+        assertEquals(1, result.getInserted());
+        assertEquals(0, result.getUpdated());
+        assertEquals("같은 batch 안의 중복 isbn 줄은 중복으로 센다.", 1, result.getDuplicate());
+        assertEquals("마지막 줄이 반영된다.", 11000, itemRepository.findBooksByIsbns(Arrays.asList("isbn-10")).get(0).getPrice());
+    }
+
+    private ByteArrayInputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,77 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.OptimisticLockException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 수정 화면 조회, 재고 변경, 수정 요청이 각각 다른 트랜잭션에서 실행되는 상황을 그대로 재현하기 위해 @Transactional 을 걸지 않는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ItemServiceTest {
+
+    @Autowired ItemService itemService;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 수정_화면을_연_뒤_재고가_바뀌면_수정하지_않는다() throws Exception {
+        // given
+        Book book = createBook("시골 JPA " + System.nanoTime(), 10000, 10);
+        Item form = itemService.findOne(book.getId());  // 수정 화면을 열었을 때의 재고는 10
+
+        // 그 사이 다른 트랜잭션에서 주문으로 재고가 7이 되었다.
+        new TransactionTemplate(transactionManager).execute(status -> {
+            itemService.findOne(book.getId()).removeStock(3);
+            return null;
+        });
+
+        // when - 화면에서 본 재고 10 그대로, 가격만 수정
+        try {
+            itemService.updateItem(form.getId(), form.getVersion(), form.getName(), 20000, form.getStockQuantity());
+            fail("낙관적 락 예외가 발생해야 한다.");
+        } catch (OptimisticLockException e) {
+            // 예상한 충돌
+        }
+
+        // then
+        Item findItem = itemService.findOne(book.getId());
+        assertEquals("주문으로 줄어든 재고를 덮어쓰면 안된다.", 7, findItem.getStockQuantity());
+        assertEquals("충돌한 수정은 반영되지 않아야 한다.", 10000, findItem.getPrice());
+    }
+
+    @Test
+    public void 최신_version_으로_수정하면_반영된다() throws Exception {
+        // given
+        Book book = createBook("시골 JPA " + System.nanoTime(), 10000, 10);
+        Item form = itemService.findOne(book.getId());
+
+        // when
+        itemService.updateItem(form.getId(), form.getVersion(), form.getName(), 20000, 8);
+
+        // then
+        Item findItem = itemService.findOne(book.getId());
+        assertEquals(20000, findItem.getPrice());
+        assertEquals(8, findItem.getStockQuantity());
+        assertEquals("수정할 때마다 version 이 증가해야 한다.", form.getVersion() + 1, findItem.getVersion());
+    }
+
+    private Book createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book;
+    }
+}
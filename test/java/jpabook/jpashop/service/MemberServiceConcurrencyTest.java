@@ -0,0 +1,107 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 스레드마다 트랜잭션이 커밋되어야 하므로 @Transactional 을 걸지 않는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class MemberServiceConcurrencyTest {
+
+    static final int THREADS = 8;
+
+    @Autowired MemberService memberService;
+
+    @Test
+    public void 같은_이름으로_동시에_가입하면_한명만_성공한다() throws Exception {
+        // given
+        String name = "동시가입-" + System.nanoTime();
+        AtomicInteger joined = new AtomicInteger();
+        AtomicInteger duplicated = new AtomicInteger();
+
+        // when
+        runConcurrently(THREADS, i -> {
+            try {
+                memberService.join(createMember(name));
+                joined.incrementAndGet();
+            } catch (IllegalStateException e) {
+                duplicated.incrementAndGet();
+            }
+        });
+
+        // then
+        assertEquals(1, joined.get());
+        assertEquals(THREADS - 1, duplicated.get());
+    }
+
+    /**
+     * 회원 2,000명을 커밋하므로 평소에는 실행하지 않는다.
+     * 실행 : JVM 옵션 -Dbenchmark=true 를 주고 이 테스트를 실행한다. (옵션이 없으면 건너뛴다.)
+     */
+    @Test
+    public void 벤치마크_회원가입_처리량() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+
+        // given
+        int joinsPerThread = 250;
+        String prefix = "처리량-" + System.nanoTime() + "-";
+
+        // when
+        long startNanos = System.nanoTime();
+        runConcurrently(THREADS, t -> {
+            for (int i = 0; i < joinsPerThread; i++) {
+                memberService.join(createMember(prefix + t + "-" + i));
+            }
+        });
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+        // then
+        int joins = THREADS * joinsPerThread;
+        System.out.printf("joins=%d, elapsed=%dms, throughput=%.1f joins/s%n",
+                joins, elapsedMillis, joins * 1000.0 / Math.max(elapsedMillis, 1));
+    }
+
+    private void runConcurrently(int threads, ThreadTask task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int threadIndex = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(threadIndex);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return member;
+    }
+
+    @FunctionalInterface
+    interface ThreadTask {
+        void run(int threadIndex);
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -59,4 +61,27 @@ public class MemberServiceTest {
         // then
         fail("예외가 발생해야 한다.");   // fail : 코드가 돌다가 여기 오면 안되는 것. 오면 뭔가 잘못 되었다는 뜻.
     }
-}
\ No newline at end of file
+
+    @Test
+    public void 대량_회원가입() throws Exception {
+        // given
+        memberService.join(createMember("kim"));
+
+        // when
+        List<Long> ids = memberService.joinAll(Arrays.asList(
+                createMember("lee"), createMember("kim"), createMember("park"), createMember("lee")));
+
+        // then
+        assertNotNull(ids.get(0));
+        assertNull("이미 가입된 이름은 건너뛴다.", ids.get(1));
+        assertNotNull(ids.get(2));
+        assertNull("요청 안에서 중복된 이름도 건너뛴다.", ids.get(3));
+        assertEquals("park", memberRepository.findOne(ids.get(2)).getName());
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return member;
+    }
+}
@@ -0,0 +1,170 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.OrderRepository;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+/**
+ * 여러 스레드가 같은 상품을 동시에 주문/취소 할 때 재고가 정확한지 확인한다.
+ * 스레드마다 별도의 트랜잭션이 커밋되어야 하므로 클래스에 @Transactional 을 걸지 않는다.
+ * 대신 커밋된 주문, 상품, 회원은 테스트가 끝나면 지운다. (보관 작업, 배송 처리 테스트가 이 주문까지 처리하지 않도록)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderServiceConcurrencyTest {
+
+    static final int THREADS = 8;
+    static final int OPERATIONS_PER_THREAD = 30;
+    static final int INITIAL_STOCK = 10_000;
+
+    @Autowired OrderService orderService;
+    @Autowired ItemService itemService;
+    @Autowired MemberService memberService;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired EntityManager em;
+    @SpyBean OrderRepository orderRepository;
+
+    Long memberId;
+    Long itemId;
+    Queue<Long> orderIds = new ConcurrentLinkedQueue<>();
+
+    @After
+    public void 커밋된_데이터_정리() {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            for (Long orderId : orderIds) {
+                em.remove(em.find(Order.class, orderId));  // 주문상품, 배송도 cascade 로 지워진다.
+            }
+            if (itemId != null) {
+                em.remove(em.find(Item.class, itemId));
+            }
+            if (memberId != null) {
+                em.remove(em.find(Member.class, memberId));
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void 동시_주문_취소시_재고_정합성() throws Exception {
+        // given
+        memberId = createMember();
+        itemId = createBook();
+
+        AtomicInteger ordered = new AtomicInteger();
+        AtomicInteger canceled = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when - 주문을 하고, 두 번에 한 번은 방금 한 주문을 취소한다.
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    try {
+                        Long orderId = orderService.order(memberId, itemId, 1);
+                        orderIds.add(orderId);
+                        ordered.incrementAndGet();
+                        if (i % 2 == 0) {
+                            orderService.cancelOrder(orderId);
+                            canceled.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();   // 재시도 횟수를 모두 쓴 경우
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        int expectedStock = INITIAL_STOCK - ordered.get() + canceled.get();
+        assertEquals("재고 = 초기 재고 - 주문 수량 + 취소 수량", expectedStock, itemService.findOne(itemId).getStockQuantity());
+        assertTrue("재시도로 대부분의 요청이 성공해야 한다. failed=" + failed.get(), ordered.get() > THREADS * OPERATIONS_PER_THREAD / 2);
+    }
+
+    @Test
+    public void 대량_취소_도중_주문이_바뀌면_다시_실행해서_재고를_한번만_돌려놓는다() throws Exception {
+        // given - 재고 INITIAL_STOCK 에서 3건 주문
+        memberId = createMember();
+        itemId = createBook();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Long orderId = orderService.order(memberId, itemId, 1);
+            orderIds.add(orderId);
+            ids.add(orderId);
+        }
+
+        // 대량 취소가 상태를 조회한 직후, update 하기 전에 다른 트랜잭션이 첫 번째 주문을 취소한다. (처음 한 번만)
+        AtomicBoolean interleaved = new AtomicBoolean();
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        doAnswer(invocation -> {
+            Object states = invocation.callRealMethod();
+            if (interleaved.compareAndSet(false, true)) {
+                requiresNew.execute(status -> {
+                    orderService.cancelOrder(ids.get(0));
+                    return null;
+                });
+            }
+            return states;
+        }).when(orderRepository).findCancelStates(anyCollection());
+
+        // when
+        OrderCancelResult result = orderService.cancelOrders(ids);
+
+        // then
+        verify(orderRepository, times(2)).findCancelStates(anyCollection());   // 충돌 후 한 번 더 실행
+        assertEquals(ids.subList(1, 3), result.getCanceled());
+        assertEquals(ids.subList(0, 1), result.getAlreadyCanceled());
+        assertEquals("재고는 주문마다 한 번씩만 돌아와야 한다.", INITIAL_STOCK, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("동시성-" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook() {
+        Book book = new Book();
+        book.setName("동시성 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(INITIAL_STOCK);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
@@ -1,6 +1,7 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
@@ -17,6 +18,8 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.Collections;
 
 import static org.junit.Assert.*;
 
@@ -83,6 +86,39 @@ public class OrderServiceTest {
         fail("재고 수량 부족 예외가 발생해야 한다.");  // 여기 Line까지 오면 안된다는 것을 명시.
     }
 
+    @Test
+    public void 대량_주문취소() throws Exception {
+        // given
+        Member member = createMember();
+        Book bookA = createBook("시골 JPA", 10000, 10);
+        Book bookB = createBook("도시 JPA", 20000, 10);
+
+        Long order1 = orderService.order(member.getId(), bookA.getId(), 2);
+        Long order2 = orderService.order(member.getId(), bookA.getId(), 3);
+        Long order3 = orderService.order(member.getId(), bookB.getId(), 1);
+        Long canceledOrder = orderService.order(member.getId(), bookB.getId(), 1);
+        orderService.cancelOrder(canceledOrder);
+        Long deliveredOrder = orderService.order(member.getId(), bookB.getId(), 4);
+        orderRepository.findOne(deliveredOrder).getDelivery().setStatus(DeliveryStatus.COMP);
+        em.flush();
+        em.clear();
+
+        // when
+        OrderCancelResult result = orderService.cancelOrders(Arrays.asList(order1, order2, order3, canceledOrder, deliveredOrder, -1L));
+
+        // then
+        assertEquals(Arrays.asList(order1, order2, order3), result.getCanceled());
+        assertEquals(Collections.singletonList(canceledOrder), result.getAlreadyCanceled());
+        assertEquals(Collections.singletonList(deliveredOrder), result.getDelivered());
+        assertEquals(Collections.singletonList(-1L), result.getNotFound());
+
+        Order getOrder = orderRepository.findOne(order2);
+        assertEquals("벌크 update 후에도 영속성 컨텍스트가 아닌 DB 값을 읽는다.", OrderStatus.CANCEL, getOrder.getStatus());
+        assertEquals(1, getOrder.getVersion());
+        assertEquals("취소된 수량(2 + 3)만큼 재고가 늘어야 한다.", 10, em.find(Book.class, bookA.getId()).getStockQuantity());
+        assertEquals("배송 완료된 주문의 수량(4)은 돌아오지 않는다.", 10 - 4, em.find(Book.class, bookB.getId()).getStockQuantity());
+    }
+
     private Book createBook(String name, int orderPrice, int stockQuantity) {
         Book book = new Book();
         book.setName(name);
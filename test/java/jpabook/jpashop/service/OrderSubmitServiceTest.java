@@ -0,0 +1,75 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * unique 위반은 커밋할 때 확인되므로 클래스에 @Transactional 을 걸지 않는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderSubmitServiceTest {
+
+    @Autowired OrderSubmitService orderSubmitService;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 같은_키로_다시_주문하면_처음_주문을_돌려준다() throws Exception {
+        // given
+        Long memberId = createMember();
+        Book book = createBook(10);
+        String key = UUID.randomUUID().toString();
+
+        // when
+        Long first = orderSubmitService.submit(key, memberId, book.getId(), 2);
+        Long second = orderSubmitService.submit(key, memberId, book.getId(), 2);
+
+        // then
+        assertEquals(first, second);
+        assertEquals("재고는 한 번만 줄어든다.", 8, itemService.findOne(book.getId()).getStockQuantity());
+    }
+
+    @Test
+    public void 메모리에_없는_키는_DB에서_찾는다() throws Exception {
+        // given - 재시작 전에 같은 키로 주문했다. (메모리 저장소를 거치지 않음)
+        Long memberId = createMember();
+        Book book = createBook(10);
+        String key = UUID.randomUUID().toString();
+        Long original = orderService.order(memberId, book.getId(), 3, key);
+
+        // when
+        Long retried = orderSubmitService.submit(key, memberId, book.getId(), 3);
+
+        // then
+        assertEquals(original, retried);
+        assertEquals("unique 위반으로 롤백되어 재고가 그대로다.", 7, itemService.findOne(book.getId()).getStockQuantity());
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("idempotency-" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Book createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("멱등 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book;
+    }
+}
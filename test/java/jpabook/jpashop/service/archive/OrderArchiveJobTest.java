@@ -0,0 +1,113 @@
+package jpabook.jpashop.service.archive;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.OrderSubmitService;
+import jpabook.jpashop.service.query.OrderDto;
+import jpabook.jpashop.service.query.OrderQueryService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+/**
+ * 보관은 배치마다 커밋하므로 클래스에 @Transactional 을 걸지 않는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderArchiveJobTest {
+
+    @Autowired OrderArchiveJob orderArchiveJob;
+    @Autowired OrderQueryService orderQueryService;
+    @Autowired OrderService orderService;
+    @Autowired OrderSubmitService orderSubmitService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired EntityManagerFactory emf;
+
+    @Test
+    public void 취소된_주문은_보관되고_보관테이블에서_조회된다() throws Exception {
+        // given
+        String memberName = "archive-" + System.nanoTime();
+        Member member = new Member();
+        member.setName(memberName);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("보관 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        Long canceledId = orderService.order(memberId, book.getId(), 2);
+        orderService.cancelOrder(canceledId);
+        Long orderedId = orderService.order(memberId, book.getId(), 3);
+
+        // when
+        OrderArchiveResult result = orderArchiveJob.run(Duration.ZERO, 100);
+
+        // then
+        assertTrue(result.getArchived() >= 1);
+        assertNull("주문 테이블에서 지워진다.", findHot(canceledId));
+        assertNotNull("진행 중인 주문은 보관하지 않는다.", findHot(orderedId));
+
+        OrderDto archived = orderQueryService.findOrder(canceledId).orElseThrow(AssertionError::new);
+        assertEquals(memberName, archived.getName());
+        assertEquals(OrderStatus.CANCEL, archived.getOrderStatus());
+        assertEquals("서울", archived.getAddress().getCity());
+        assertEquals(1, archived.getOrderItems().size());
+        assertEquals("보관 JPA", archived.getOrderItems().get(0).getItemName());
+        assertEquals(2, archived.getOrderItems().get(0).getCount());
+    }
+
+    @Test
+    public void 보관된_주문의_멱등성_키로_다시_요청하면_새로_주문하지_않는다() throws Exception {
+        // given - 메모리(OrderIdempotencyStore)를 거치지 않고 키와 함께 주문한 뒤 취소하고 보관한다.
+        Member member = new Member();
+        member.setName("archive-key-" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("보관 멱등성");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        String idempotencyKey = "archive-" + System.nanoTime();
+        Long orderId = orderService.order(memberId, book.getId(), 2, idempotencyKey);
+        orderService.cancelOrder(orderId);
+        orderArchiveJob.run(Duration.ZERO, 100);
+        assertNull(findHot(orderId));
+
+        // when
+        Long replayedId = orderSubmitService.submit(idempotencyKey, memberId, book.getId(), 2);
+
+        // then
+        assertEquals("보관된 주문의 id 를 돌려준다.", orderId, replayedId);
+        assertEquals("재고가 줄지 않는다.", 10, itemService.findOne(book.getId()).getStockQuantity());
+    }
+
+    private Order findHot(Long orderId) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.find(Order.class, orderId);
+        } finally {
+            em.close();
+        }
+    }
+}
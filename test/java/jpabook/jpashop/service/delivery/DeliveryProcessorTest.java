@@ -0,0 +1,93 @@
+package jpabook.jpashop.service.delivery;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * 작업자 스레드마다 별도 트랜잭션으로 커밋해야 하므로 클래스에 @Transactional 을 걸지 않는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class DeliveryProcessorTest {
+
+    @Autowired DeliveryProcessor deliveryProcessor;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired EntityManagerFactory emf;
+
+    @Test
+    public void 여러_작업자가_배송을_한번씩만_처리한다() throws Exception {
+        // given
+        List<Long> orderIds = createOrders(200);
+
+        // when
+        Map<Long, AtomicInteger> handled = new ConcurrentHashMap<>();
+        DeliveryRunResult result = deliveryProcessor.run(4, 20, deliveryIds -> {
+            for (Long deliveryId : deliveryIds) {
+                handled.computeIfAbsent(deliveryId, id -> new AtomicInteger()).incrementAndGet();
+            }
+        });
+
+        // then
+        assertEquals(0, result.getFailedBatches());
+        assertTrue(result.getCompleted() >= orderIds.size());
+        for (Object[] row : findDeliveries(orderIds)) {
+            Long deliveryId = (Long) row[0];
+            assertEquals("배송 완료", DeliveryStatus.COMP, row[1]);
+            assertNull("가져간 표시는 지운다.", row[2]);
+            assertEquals("같은 배송은 한 번만 처리한다.", 1, handled.get(deliveryId).get());
+        }
+    }
+
+    private List<Long> createOrders(int count) {
+        Member member = new Member();
+        member.setName("delivery-" + System.nanoTime());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("배송 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(count);
+        itemService.saveItem(book);
+
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            orderIds.add(orderService.order(memberId, book.getId(), 1));
+        }
+        return orderIds;
+    }
+
+    private List<Object[]> findDeliveries(List<Long> orderIds) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createQuery(
+                    "select d.id, d.status, d.claimToken from Order o join o.delivery d where o.id in :orderIds", Object[].class)
+                    .setParameter("orderIds", orderIds)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.service.event.OrderChangedEvent;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OrderHistoryCacheTest {
+
+    @Test
+    public void 동시에_조회해도_한번만_로딩한다() throws Exception {
+        // given
+        OrderHistoryCache cache = new OrderHistoryCache(1000);
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when
+        List<Future<List<OrderQueryDto>>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> cache.get(1L, memberId -> {
+                loadCount.incrementAndGet();
+                await(loading);
+                return orders(1);
+            })));
+        }
+        Thread.sleep(100);
+        loading.countDown();
+        for (Future<List<OrderQueryDto>> future : futures) {
+            assertEquals(1, future.get(10, TimeUnit.SECONDS).size());
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(1, loadCount.get());
+        assertEquals(1, cache.stats().getLoadCount());
+    }
+
+    @Test
+    public void 주문이_바뀌면_해당_회원만_지운다() throws Exception {
+        // given
+        OrderHistoryCache cache = new OrderHistoryCache(1000);
+        cache.get(1L, id -> orders(1));
+        cache.get(2L, id -> orders(1));
+
+        // when
+        cache.onOrderChanged(new OrderChangedEvent(OrderChangedEvent.Type.ORDERED, 10L, 1L));
+
+        // then
+        assertEquals(2, cache.get(1L, id -> orders(2)).size());
+        assertEquals(1, cache.get(2L, id -> orders(2)).size());
+        assertEquals("4번 조회 중 1번만 캐시에서 꺼냈다.", 0.25, cache.stats().getHitRatio(), 0.0001);
+    }
+
+    @Test
+    public void 크기를_넘으면_오래된_회원부터_버린다() throws Exception {
+        // given - 회원마다 weight = 1 + 주문 2건 * (1 + 주문상품 1건) = 5
+        OrderHistoryCache cache = new OrderHistoryCache(10);
+
+        // when
+        cache.get(1L, id -> orders(2));
+        cache.get(2L, id -> orders(2));
+        cache.get(1L, id -> orders(2));     // 1번 회원을 최근에 사용
+        cache.get(3L, id -> orders(2));
+
+        // then
+        OrderHistoryCache.Stats stats = cache.stats();
+        assertEquals(2, stats.getSize());
+        assertEquals(10, stats.getWeight());
+        assertEquals(1, stats.getEvictionCount());
+        assertEquals("2번 회원이 버려졌으므로 다시 로딩한다.", 0, cache.get(2L, id -> Collections.emptyList()).size());
+    }
+
+    private List<OrderQueryDto> orders(int count) {
+        List<OrderQueryDto> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            OrderQueryDto order = new OrderQueryDto((long) i, "회원", LocalDateTime.now(), OrderStatus.ORDER, null);
+            order.setOrderItems(Collections.singletonList(new OrderItemQueryDto((long) i, "JPA", 10000, 1)));
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
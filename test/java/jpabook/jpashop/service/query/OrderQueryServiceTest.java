@@ -0,0 +1,100 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderSerach;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnitUtil;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * OSIV 없이 트랜잭션 밖(컨트롤러, 뷰)에서 사용할 때 지연 로딩이 일어나지 않는지 확인한다.
+ * 조회 결과가 준영속 상태여야 하므로 클래스에 @Transactional 을 걸지 않는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class OrderQueryServiceTest {
+
+    @Autowired OrderQueryService orderQueryService;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired EntityManagerFactory emf;
+
+    @Test
+    public void 주문상세_plan은_트랜잭션_밖에서_지연로딩이_없다() throws Exception {
+        // given
+        String memberName = "fetch-plan-" + System.nanoTime();
+        createOrder(memberName);
+        OrderSerach orderSearch = new OrderSerach();
+        orderSearch.setMemberName(memberName);
+
+        // when
+        List<Order> orders = orderQueryService.findOrdersWithItems(orderSearch);
+
+        // then - plan 에 있는 연관관계는 모두 로딩되어 있다.
+        PersistenceUnitUtil util = emf.getPersistenceUnitUtil();
+        assertEquals(1, orders.size());
+        Order order = orders.get(0);
+        assertTrue(util.isLoaded(order, "member"));
+        assertTrue(util.isLoaded(order, "delivery"));
+        assertTrue(util.isLoaded(order, "orderItems"));
+        for (OrderItem orderItem : order.getOrderItems()) {
+            assertTrue(util.isLoaded(orderItem, "item"));
+            assertTrue(util.isLoaded(orderItem.getItem()));
+        }
+
+        // 트랜잭션 밖에서 접근해도 LazyInitializationException 이 발생하지 않는다.
+        assertEquals(memberName, order.getMember().getName());
+        assertEquals("서울", order.getDelivery().getAddress().getCity());
+        assertEquals("OSIV JPA", order.getOrderItems().get(0).getItem().getName());
+    }
+
+    @Test
+    public void 주문요약_plan은_컬렉션을_로딩하지_않는다() throws Exception {
+        // given
+        String memberName = "fetch-plan-" + System.nanoTime();
+        createOrder(memberName);
+        OrderSerach orderSearch = new OrderSerach();
+        orderSearch.setMemberName(memberName);
+
+        // when
+        List<Order> orders = orderQueryService.findOrdersWithMemberDelivery(orderSearch);
+
+        // then
+        PersistenceUnitUtil util = emf.getPersistenceUnitUtil();
+        Order order = orders.get(0);
+        assertTrue(util.isLoaded(order, "member"));
+        assertTrue(util.isLoaded(order, "delivery"));
+        assertFalse("plan 에 없는 컬렉션은 로딩하지 않는다.", util.isLoaded(order, "orderItems"));
+    }
+
+    private void createOrder(String memberName) {
+        Member member = new Member();
+        member.setName(memberName);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("OSIV JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        orderService.order(memberId, book.getId(), 2);
+    }
+}
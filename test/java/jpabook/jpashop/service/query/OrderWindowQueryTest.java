@@ -0,0 +1,142 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderSerach;
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class OrderWindowQueryTest {
+
+    @Autowired OrderQueryService orderQueryService;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 기간검색은_최신월부터_limit까지만_읽는다() throws Exception {
+        // given
+        Member member = createMember("기간검색-" + System.nanoTime());
+        Book book = createBook(100);
+        createOrder(member, book, LocalDateTime.of(2001, 1, 15, 10, 0));
+        Long feb10 = createOrder(member, book, LocalDateTime.of(2001, 2, 10, 10, 0)).getId();
+        Long feb20 = createOrder(member, book, LocalDateTime.of(2001, 2, 20, 10, 0)).getId();
+        Long apr1 = createOrder(member, book, LocalDateTime.of(2001, 4, 1, 10, 0)).getId();
+        createOrder(member, book, LocalDateTime.of(2001, 6, 1, 10, 0));
+        em.flush();
+        em.clear();
+        OrderSerach orderSearch = new OrderSerach();
+        orderSearch.setMemberName(member.getName());
+
+        // when
+        OrderWindowPage first = orderQueryService.findOrdersInWindow(orderSearch,
+                YearMonth.of(2001, 2), YearMonth.of(2001, 5), null, null, 2);
+        OrderWindowPage second = orderQueryService.findOrdersInWindow(orderSearch,
+                YearMonth.of(2001, 2), YearMonth.of(2001, 5), first.getNextCursorDate(), first.getNextCursorId(), 2);
+
+        // then
+        assertEquals(2, first.getOrders().size());
+        assertEquals("최신순", apr1, first.getOrders().get(0).getOrderId());
+        assertEquals(feb20, first.getOrders().get(1).getOrderId());
+        assertEquals("5월 -> 2월", 4, first.getScannedMonths());
+        assertEquals(feb20, first.getNextCursorId());
+
+        assertEquals(1, second.getOrders().size());
+        assertEquals(feb10, second.getOrders().get(0).getOrderId());
+        assertEquals("커서가 있는 2월부터 읽는다.", 1, second.getScannedMonths());
+        assertNull("마지막 페이지", second.getNextCursorDate());
+    }
+
+    /**
+     * 36개월 x 월 1000건 - 기간 없는 검색 vs 최근 3개월 기간 검색
+     * 실행 : JVM 옵션 -Dbenchmark=true 를 주고 이 테스트를 실행한다. (옵션이 없으면 건너뛴다.)
+     */
+    @Test
+    public void 벤치마크_36개월_기간검색() throws Exception {
+        Assume.assumeTrue(Boolean.getBoolean("benchmark"));
+
+        // given
+        int months = 36;
+        int ordersPerMonth = 1000;
+        String memberName = "기간벤치마크-" + System.nanoTime();
+        Member member = createMember(memberName);
+        Book book = createBook(months * ordersPerMonth);
+        YearMonth lastMonth = YearMonth.of(2001, 12);
+        for (int m = 0; m < months; m++) {
+            YearMonth month = lastMonth.minusMonths(m);
+            for (int o = 0; o < ordersPerMonth; o++) {
+                createOrder(member, book, month.atDay(1 + o % month.lengthOfMonth()).atTime(o % 24, o % 60));
+            }
+            em.flush();
+            em.clear();
+            member = em.find(Member.class, member.getId());
+            book = em.find(Book.class, book.getId());
+        }
+        OrderSerach orderSearch = new OrderSerach();
+        orderSearch.setMemberName(memberName);
+        int iterations = 20;
+
+        // when - 기간 없음 (전체 주문에서 1000건)
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            orderQueryService.findOrdersWithMemberDelivery(orderSearch);
+            em.clear();
+        }
+        long unboundedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) / iterations;
+
+        // when - 최근 3개월, 100건
+        start = System.nanoTime();
+        OrderWindowPage page = null;
+        for (int i = 0; i < iterations; i++) {
+            page = orderQueryService.findOrdersInWindow(orderSearch, lastMonth.minusMonths(2), lastMonth, null, null, 100);
+            em.clear();
+        }
+        long windowMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) / iterations;
+
+        // then
+        assertEquals(100, page.getOrders().size());
+        assertEquals(1, page.getScannedMonths());
+        System.out.printf("unbounded search=%dms, 3-month window=%dms (orders=%d, months=%d)%n",
+                unboundedMillis, windowMillis, months * ordersPerMonth, months);
+    }
+
+    private Order createOrder(Member member, Book book, LocalDateTime orderDate) {
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, book.getPrice(), 1));
+        order.setOrderDate(orderDate);
+        em.persist(order);
+        return order;
+    }
+
+    private Book createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("기간검색 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        em.persist(book);
+        return book;
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+}
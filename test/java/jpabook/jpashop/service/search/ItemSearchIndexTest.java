@@ -0,0 +1,73 @@
+package jpabook.jpashop.service.search;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+
+public class ItemSearchIndexTest {
+
+    ItemSearchIndex index = new ItemSearchIndex();
+
+    @Test
+    public void 접두어_검색() throws Exception {
+        // given
+        index.index(createBook(1L, "JPA 프로그래밍", "김영한", "978-89-6077-777-1"));
+        index.index(createBook(2L, "Spring Boot", "kim", "978-11-1111-111-1"));
+        index.index(createAlbum(3L, "JPA Song", "IU"));
+
+        // then
+        assertEquals(Arrays.asList(1L, 3L), index.search("jp", 10));
+        assertEquals(Collections.singletonList(1L), index.search("jpa 김", 10));
+        assertEquals(Collections.singletonList(3L), index.search("iu", 10));
+        assertEquals(Collections.singletonList(2L), index.search("97811", 10));
+    }
+
+    @Test
+    public void isbn_정확히_일치() throws Exception {
+        // given
+        index.index(createBook(1L, "JPA 프로그래밍", "김영한", "978-89-6077-777-1"));
+
+        // then
+        assertEquals(Optional.of(1L), index.findByIsbn("9788960777771"));
+        assertEquals(Optional.empty(), index.findByIsbn("978896077777"));
+    }
+
+    @Test
+    public void 수정하면_이전_토큰은_지워진다() throws Exception {
+        // given
+        Book book = createBook(1L, "JPA 프로그래밍", "김영한", "978-89-6077-777-1");
+        index.index(book);
+
+        // when
+        book.setName("Spring 프로그래밍");
+        index.index(book);
+
+        // then
+        assertTrue(index.search("jpa", 10).isEmpty());
+        assertEquals(Collections.singletonList(1L), index.search("spring", 10));
+        assertEquals(1, index.size());
+    }
+
+    private Book createBook(Long id, String name, String author, String isbn) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        book.setAuthor(author);
+        book.setIsbn(isbn);
+        return book;
+    }
+
+    private Album createAlbum(Long id, String name, String artist) {
+        Album album = new Album();
+        album.setId(id);
+        album.setName(name);
+        album.setArtist(artist);
+        return album;
+    }
+}